@@ -0,0 +1,158 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>AddTest</h1>
+ * A randomized testing script for the adder designs in UIntAdder.
+ * Every design is checked against the ripple-carry adder on random inputs and on the carry chains that are hardest
+ *   to resolve, with sizes chosen to land on both sides of each group, block and parallel boundary.
+ * UIntBitSlicedBatch is checked lane by lane against UInt.add.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class AddTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // Random operands at sizes around the 64-limb words of packed carries and the carry-select blocks
+            int blk = UIntAdder.BLOCK_LIMBS;
+            int[] sizes = {1, 2, 63, 64, 65, 127, 128, 129, blk - 1, blk, blk + 1, 3 * blk + 17};
+            for (UIntAdder adder : UIntAdder.values()) {
+                for (int n : sizes) {
+                    passed += checkAdd(++total, adder, random(rng, n), random(rng, n), rng.nextInt(2));
+                }
+            }
+
+            // Carry chains: all ones plus one carries through every limb, and limbs that sum to all ones only
+            //   propagate, so the carry in alone decides every limb of the result
+            for (UIntAdder adder : UIntAdder.values()) {
+                int n = 2 * blk + 5;
+                passed += checkAdd(++total, adder, ones(n), ones(n), 1L);
+                long[] a = random(rng, n);
+                long[] b = new long[n];
+                for (int i = 0; i < n; i++) {
+                    b[i] = ~a[i];
+                }
+                passed += checkAdd(++total, adder, a, b, 0L);
+                passed += checkAdd(++total, adder, a, b, 1L);
+                // A single generate at the bottom of a long propagate run, then a break in the middle of it
+                b[0] = -1L;
+                a[0] = 1L;
+                b[n / 2] = 0L;
+                passed += checkAdd(++total, adder, a, b, 0L);
+            }
+
+            // Runs long enough to split across cores, checked against the ripple-carry adder
+            int par = UIntAdder.PARALLEL_LIMBS;
+            for (UIntAdder adder : UIntAdder.values()) {
+                passed += checkAdd(++total, adder, random(rng, par + 77), random(rng, par + 77), 1L);
+            }
+
+            // The result may be the same run as either operand
+            for (UIntAdder adder : UIntAdder.values()) {
+                long[] a = random(rng, 300);
+                long[] b = random(rng, 300);
+                long[] expected = new long[300];
+                long carry = UIntAdder.RIPPLE_CARRY.addN(expected, 0, a, 0, b, 0, 300, 1L);
+                long[] c = a.clone();
+                boolean ok = adder.addN(c, 0, c, 0, b, 0, 300, 1L) == carry && Arrays.equals(c, expected);
+                c = b.clone();
+                ok &= adder.addN(c, 0, a, 0, c, 0, 300, 1L) == carry && Arrays.equals(c, expected);
+                passed += check(++total, ok);
+            }
+
+            // Through the public API every adder gives the same sum, length included, as the default one
+            UInt x = fromLimbs(ones(blk + 3), (blk + 3) * 64);
+            UInt y = fromLimbs(random(rng, 40), 40 * 64 - 1);
+            UInt expectedSum = UInt.add(x, y);
+            for (UIntAdder adder : UIntAdder.values()) {
+                UInt sum = UInt.add(x, y, new UInt(1), adder);
+                passed += check(++total, sum.length == expectedSum.length && sum.toString().equals(expectedSum.toString()));
+            }
+            UInt z = x.clone();
+            UInt.add(z, z, z, UIntAdder.KOGGE_STONE);
+            passed += check(++total, z.toString().equals(UInt.add(x, x).toString()));
+
+            // Bit-sliced batches: the transpose is its own inverse, and lane-wise sums match UInt.add, length included,
+            //   for lanes of mixed lengths, lanes that carry out of the top, and arrays that span several batches
+            long[] matrix = random(rng, 64);
+            long[] transposed = matrix.clone();
+            UIntBitSlicedBatch.transpose(transposed);
+            boolean ok = (transposed[5] >>> 17 & 1L) == (matrix[17] >>> 5 & 1L);
+            UIntBitSlicedBatch.transpose(transposed);
+            passed += check(++total, ok && Arrays.equals(transposed, matrix));
+            int[] widths = {1, 7, 63, 64, 65, 130, 200};
+            UInt[] as = new UInt[150];
+            UInt[] bs = new UInt[150];
+            for (int i = 0; i < as.length; i++) {
+                int wa = widths[rng.nextInt(widths.length)];
+                int wb = widths[rng.nextInt(widths.length)];
+                as[i] = i % 5 == 0 ? fromLimbs(ones(UInt.limbs(wa)), wa) : fromLimbs(random(rng, UInt.limbs(wa)), wa);
+                bs[i] = i % 7 == 0 ? new UInt(1) : fromLimbs(random(rng, UInt.limbs(wb)), wb);
+            }
+            UInt[] sums = UIntBitSlicedBatch.addAll(as, bs);
+            ok = true;
+            for (int i = 0; i < as.length; i++) {
+                UInt expectedLane = UInt.add(as[i], bs[i]);
+                ok &= sums[i].length == expectedLane.length && sums[i].toString().equals(expectedLane.toString());
+            }
+            passed += check(++total, ok);
+            UIntBitSlicedBatch batch = new UIntBitSlicedBatch(Arrays.copyOf(as, 64));
+            batch.add(batch);
+            UInt lane = batch.get(5);
+            UInt doubled = UInt.add(as[5], as[5]);
+            passed += check(++total, batch.size() == 64 && lane.length == doubled.length
+                    && lane.toString().equals(doubled.toString()) && batch.toArray()[5].toString().equals(doubled.toString()));
+
+            System.out.printf("%nAddTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nAddTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private static long[] random(Random rng, int n) {
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = rng.nextLong();
+        }
+        return a;
+    }
+
+    private static long[] ones(int n) {
+        long[] a = new long[n];
+        Arrays.fill(a, -1L);
+        return a;
+    }
+
+    private static UInt fromLimbs(long[] limbs, int length) {
+        UInt u = new UInt(1);
+        u.bits = limbs;
+        u.length = length;
+        u.clearHighBits();
+        return u;
+    }
+
+    private static int checkAdd(int testNum, UIntAdder adder, long[] a, long[] b, long carry) {
+        long[] expected = new long[a.length];
+        long[] actual = new long[a.length];
+        long expectedCarry = UIntAdder.RIPPLE_CARRY.addN(expected, 0, a, 0, b, 0, a.length, carry);
+        long actualCarry = adder.addN(actual, 0, a, 0, b, 0, a.length, carry);
+        if (expectedCarry != actualCarry || !Arrays.equals(expected, actual)) {
+            System.out.printf("Test %d failed!  %s sum of %d limbs differs from the ripple-carry result!%n",
+                    testNum, adder, a.length);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
@@ -0,0 +1,117 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>AdderBenchmark</h1>
+ * Times each of the UIntAdder designs on random operands of growing size, and reports the throughput of each
+ *   alongside its speed relative to RIPPLE_CARRY. Every design's sum is compared against the ripple-carry sum
+ *   before it is timed, so a wrong design cannot post a fast time.
+ * Run it with a size in limbs to time just that size, for example java AdderBenchmark 1048576.
+ * Setting -Duint.parallelAddLimbs moves the point where the lookahead designs start to use more than one core.
+ * It then times UIntBitSlicedBatch against adding the same 64 pairs of small UInts one at a time, both with the
+ *   values already sliced and with the transposes in and out counted.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class AdderBenchmark {
+
+    // Each timing keeps adding until about this much time has passed.
+    private static final long TARGET_NANOS = 200_000_000L;
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{16, 256, 4096, 65536, 1 << 20, 1 << 23};
+        Random rng = new Random(3310);
+        System.out.printf("%d cores, parallel from %d limbs%n", Runtime.getRuntime().availableProcessors(),
+                UIntAdder.PARALLEL_LIMBS);
+        System.out.printf("%10s %-16s %12s %10s%n", "limbs", "adder", "GB/s", "vs ripple");
+        for (int n : sizes) {
+            long[] a = random(rng, n);
+            long[] b = random(rng, n);
+            // Force a carry that runs the full length, the worst case for the rippling designs.
+            a[0] = -1L;
+            b[0] = 1L;
+            for (int i = 1; i < n; i++) {
+                b[i] = ~a[i];
+            }
+            long[] expected = new long[n];
+            UIntAdder.RIPPLE_CARRY.addN(expected, 0, a, 0, b, 0, n, 0L);
+            long[] r = new long[n];
+            double ripple = 0;
+            for (UIntAdder adder : UIntAdder.values()) {
+                Arrays.fill(r, 0L);
+                adder.addN(r, 0, a, 0, b, 0, n, 0L);
+                if (!Arrays.equals(r, expected)) {
+                    System.out.printf("%10d %-16s gave the wrong sum!%n", n, adder);
+                    continue;
+                }
+                double nanos = time(adder, r, a, b, n);
+                // Each limb reads two operand words and writes one result word.
+                double rate = 24.0 * n / nanos;
+                if (adder == UIntAdder.RIPPLE_CARRY) {
+                    ripple = nanos;
+                }
+                System.out.printf("%10d %-16s %12.2f %9.2fx%n", n, adder, rate, ripple / nanos);
+            }
+        }
+
+        System.out.printf("%n%10s %-16s %12s %10s%n", "bits", "64 additions", "Madds/s", "vs UInt");
+        for (int w : new int[]{16, 32, 64, 128, 512}) {
+            UInt[] as = new UInt[UIntBitSlicedBatch.LANES];
+            UInt[] bs = new UInt[UIntBitSlicedBatch.LANES];
+            for (int j = 0; j < as.length; j++) {
+                as[j] = UInt.fromBigInteger(new BigInteger(w - 1, rng));
+                bs[j] = UInt.fromBigInteger(new BigInteger(w - 1, rng));
+            }
+            UIntBitSlicedBatch a = new UIntBitSlicedBatch(as);
+            UIntBitSlicedBatch b = new UIntBitSlicedBatch(bs);
+            double one = time(() -> {
+                for (int j = 0; j < as.length; j++) {
+                    UInt.add(as[j], bs[j]);
+                }
+            });
+            double sliced = time(() -> UIntBitSlicedBatch.add(a, b));
+            double whole = time(() -> UIntBitSlicedBatch.addAll(as, bs));
+            System.out.printf("%10d %-16s %12.2f %9.2fx%n", w, "UInt.add", 64e3 / one, 1.0);
+            System.out.printf("%10d %-16s %12.2f %9.2fx%n", w, "sliced batch", 64e3 / sliced, one / sliced);
+            System.out.printf("%10d %-16s %12.2f %9.2fx%n", w, "addAll", 64e3 / whole, one / whole);
+        }
+    }
+
+    /**
+     * Returns the average time of one n-limb addition, after a warm-up run of the same length.
+     */
+    private static double time(UIntAdder adder, long[] r, long[] a, long[] b, int n) {
+        return time(() -> adder.addN(r, 0, a, 0, b, 0, n, 0L));
+    }
+
+    /**
+     * Returns the average time of one run of body, after a warm-up run of the same length.
+     */
+    private static double time(Runnable body) {
+        for (int pass = 0; ; pass++) {
+            long reps = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                body.run();
+                reps++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < TARGET_NANOS);
+            if (pass > 0) {
+                return (double) elapsed / reps;
+            }
+        }
+    }
+
+    private static long[] random(Random rng, int n) {
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = rng.nextLong();
+        }
+        return a;
+    }
+}
@@ -0,0 +1,40 @@
+import java.util.Arrays;
+
+/**
+ * <h1>CircuitBenchmark</h1>
+ * Builds the UIntCircuit netlists for every adder design and reports the gate count, the depth and the number of
+ *   bit-packed evaluations per second of each, so the designs can be compared side by side.
+ * Run it with a width in bits to report just that width, for example java CircuitBenchmark 32.
+ * The multipliers are only reported up to 32 bits, to keep the run short.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class CircuitBenchmark {
+
+    // Each circuit is timed for about this long.
+    private static final long MILLIS = 200;
+
+    public static void main(String[] args) {
+        int[] widths = args.length > 0
+                ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+                : new int[]{8, 16, 32, 64};
+        System.out.printf("%-12s %6s %-16s %8s %6s %14s%n", "circuit", "bits", "adder", "gates", "depth", "evals/s");
+        for (int w : widths) {
+            for (UIntAdder design : UIntAdder.values()) {
+                report("add", w, design, UIntCircuit.adder(w, design));
+                report("sub", w, design, UIntCircuit.subtractor(w, design));
+                report("negate", w, design, UIntCircuit.negator(w, design));
+                if (w <= 32) {
+                    report("booth mul", w, design, UIntCircuit.boothMultiplier(w, design));
+                    report("array mul", w, design, UIntCircuit.arrayMultiplier(w, design));
+                }
+            }
+        }
+    }
+
+    private static void report(String name, int width, UIntAdder design, UIntCircuit circuit) {
+        System.out.printf("%-12s %6d %-16s %8d %6d %14.3e%n", name, width, design, circuit.gates(), circuit.depth(),
+                circuit.evaluationsPerSecond(MILLIS));
+    }
+}
@@ -0,0 +1,130 @@
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * <h1>CircuitTest</h1>
+ * A randomized testing script for the gate-level netlists built by UIntCircuit.
+ * Every circuit is evaluated on a bit-sliced batch of 64 random operand pairs and checked lane by lane against
+ *   the same operation on BigInteger, for every adder design and for widths on both sides of a limb.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class CircuitTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // Every operation in every design, on random operands and on all ones
+            int[] widths = {1, 5, 16, 33, 64, 65};
+            for (UIntAdder design : UIntAdder.values()) {
+                for (int w : widths) {
+                    UInt[] a = random(rng, w);
+                    UInt[] b = random(rng, w);
+                    b[0] = new UInt(a[0]);
+                    a[1] = ones(w);
+                    b[1] = ones(w);
+                    BigInteger mask = BigInteger.ONE.shiftLeft(w).subtract(BigInteger.ONE);
+                    passed += checkCircuit(++total, UIntCircuit.adder(w, design), a, b, (x, y) -> x.add(y));
+                    passed += checkCircuit(++total, UIntCircuit.subtractor(w, design), a, b,
+                            (x, y) -> x.compareTo(y) < 0 ? BigInteger.ZERO : x.subtract(y));
+                    passed += checkCircuit(++total, UIntCircuit.negator(w, design), a, null,
+                            (x, y) -> x.negate().and(mask));
+                    if (w <= 33) {
+                        passed += checkCircuit(++total, UIntCircuit.boothMultiplier(w, design), a, b, (x, y) -> x.multiply(y));
+                        passed += checkCircuit(++total, UIntCircuit.arrayMultiplier(w, design), a, b, (x, y) -> x.multiply(y));
+                    }
+                }
+            }
+
+            // Gate counts and depth: the ripple-carry adder needs five gates a bit, less three folded away at bit 0,
+            //   with a carry chain two gates deep per bit after the first, and Kogge-Stone trades more gates for a
+            //   depth of at most two gates per prefix step plus two
+            UIntCircuit ripple = UIntCircuit.adder(64, UIntAdder.RIPPLE_CARRY);
+            UIntCircuit prefix = UIntCircuit.adder(64, UIntAdder.KOGGE_STONE);
+            passed += check(++total, ripple.gates() == 5 * 64 - 3 && ripple.depth() == 2 * 64 - 1);
+            passed += check(++total, prefix.gates() > ripple.gates() && prefix.depth() <= 2 * 6 + 2);
+            passed += check(++total, ripple.gates() == ripple.gates(UIntCircuit.Gate.AND) + ripple.gates(UIntCircuit.Gate.OR)
+                    + ripple.gates(UIntCircuit.Gate.XOR) + ripple.gates(UIntCircuit.Gate.NOT));
+
+            // A single evaluation through apply, and a hand-built half adder whose folded and unused gates are dropped
+            UInt p = UIntCircuit.boothMultiplier(8, UIntAdder.CARRY_LOOKAHEAD).apply(new UInt(200), new UInt(77));
+            passed += check(++total, p.length == 16 && p.toInt() == 200 * 77);
+            UIntCircuit.Builder builder = new UIntCircuit.Builder();
+            int x = builder.input();
+            int y = builder.input();
+            builder.and(x, builder.not(y));
+            int sum = builder.xor(builder.xor(x, y), builder.zero());
+            int carry = builder.and(builder.and(x, y), builder.one());
+            UIntCircuit half = builder.build(new int[]{sum, carry}, 1, 1);
+            UInt h = half.apply(new UInt(1), new UInt(1));
+            passed += check(++total, half.gates() == 2 && half.depth() == 1 && h.toInt() == 2);
+            passed += checkRejected(++total, () -> half.evaluate(new long[3]));
+            passed += checkRejected(++total, () -> half.apply(new UInt(1)));
+            passed += checkRejected(++total, () -> builder.build(new int[]{sum}, 3));
+            // A wire the builder has not made yet is rejected where it is passed in, even if the gate would fold away
+            int next = carry + 1;
+            passed += checkRejected(++total, () -> builder.and(x, next));
+            passed += checkRejected(++total, () -> builder.or(builder.one(), next));
+            passed += checkRejected(++total, () -> builder.xor(-1, y));
+            passed += checkRejected(++total, () -> builder.not(next));
+            passed += checkRejected(++total, () -> builder.and(x, y, next));
+            passed += checkRejected(++total, () -> builder.build(new int[]{next}, 1, 1));
+
+            System.out.printf("%nCircuitTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nCircuitTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private interface Op {
+        BigInteger apply(BigInteger x, BigInteger y);
+    }
+
+    private static UInt[] random(Random rng, int w) {
+        UInt[] r = new UInt[UIntBitSlicedBatch.LANES];
+        for (int j = 0; j < r.length; j++) {
+            r[j] = UInt.fromBigInteger(new BigInteger(w, rng));
+        }
+        return r;
+    }
+
+    private static UInt ones(int w) {
+        return UInt.fromBigInteger(BigInteger.ONE.shiftLeft(w).subtract(BigInteger.ONE));
+    }
+
+    private static int checkCircuit(int testNum, UIntCircuit circuit, UInt[] a, UInt[] b, Op op) {
+        UIntBitSlicedBatch result = b == null ? circuit.apply(new UIntBitSlicedBatch(a))
+                : circuit.apply(new UIntBitSlicedBatch(a), new UIntBitSlicedBatch(b));
+        UInt[] lanes = result.toArray();
+        for (int j = 0; j < lanes.length; j++) {
+            BigInteger expected = op.apply(a[j].toBigInteger(), b == null ? null : b[j].toBigInteger());
+            if (lanes[j].length != circuit.outputs() || !lanes[j].toBigInteger().equals(expected)) {
+                System.out.printf("Test %d failed!  Lane %d of a %s gave %s, not %s!%n",
+                        testNum, j, circuit, lanes[j].toBigInteger(), expected);
+                return 0;
+            }
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkRejected(int testNum, Runnable r) {
+        try {
+            r.run();
+        } catch (IllegalArgumentException ex) {
+            System.out.printf("Test %d passed!%n", testNum);
+            return 1;
+        }
+        System.out.printf("Test %d failed!  No exception was thrown!%n", testNum);
+        return 0;
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
@@ -0,0 +1,204 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>DivTest</h1>
+ * A randomized testing script for the division engine behind UInt.div, UInt.rem and UInt.divRem.
+ * Every quotient and remainder is checked by multiplying back (q*b + r must equal a, with r < b),
+ *   and the recursive algorithms are also checked against Knuth's Algorithm D on the same inputs.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class DivTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // Public API tests on the values from Test
+            UInt u1 = new UInt(157);
+            UInt u2 = new UInt(943);
+            UInt u4 = new UInt(39);
+            passed += checkInt(++total, UInt.div(u2, u1).toInt(), 6);
+            passed += checkInt(++total, UInt.rem(u2, u1).toInt(), 1);
+            passed += checkInt(++total, UInt.div(u1, u2).toInt(), 0);
+            passed += checkInt(++total, UInt.rem(u1, u2).toInt(), 157);
+            UInt[] qr = UInt.divRem(u2, u4);
+            passed += checkInt(++total, qr[0].toInt(), 24);
+            passed += checkInt(++total, qr[1].toInt(), 7);
+            UInt t1 = UInt.clone(u2);
+            t1.div(u4);
+            passed += checkInt(++total, t1.toInt(), 24);
+            try {
+                UInt.div(u1, UInt.sub(u4, u1));
+                passed += check(++total, false);
+            } catch (ArithmeticException ex) {
+                passed += check(++total, true);
+            }
+
+            // Operands whose lengths carry leading zero limbs: the quotient is sized from the significant limbs,
+            //   so a padded divisor cannot make it outgrow its buffer, with or without a padded dividend too
+            BigInteger bigA = BigInteger.ONE.shiftLeft(640).subtract(BigInteger.valueOf(12345));
+            BigInteger bigB = BigInteger.ONE.shiftLeft(190).add(BigInteger.valueOf(777));
+            UInt padB = padded(bigB, 592);
+            for (UInt a : new UInt[]{UInt.fromBigInteger(bigA), padded(bigA, 768)}) {
+                BigInteger[] expected = bigA.divideAndRemainder(bigB);
+                boolean ok = UInt.rem(a, padB).toBigInteger().equals(expected[1])
+                        && UInt.div(a, padB).toBigInteger().equals(expected[0])
+                        && ImmutableUInt.of(a).remainder(padB).toBigInteger().equals(expected[1]);
+                UInt[] padQr = UInt.divRem(a, padB);
+                ok &= padQr[0].toBigInteger().equals(expected[0]) && padQr[1].toBigInteger().equals(expected[1]);
+                passed += check(++total, ok);
+            }
+
+            // A division that throws part way through still gives back the scratch space it took
+            try {
+                UIntDivider.divRem(null, 0, new long[1], 0, random(rng, 10), 0, 10, random(rng, 5), 0, 5);
+                passed += check(++total, false);
+            } catch (ArrayIndexOutOfBoundsException ex) {
+                passed += check(++total, UIntScratch.get().mark() == 0L);
+            }
+
+            // Single-limb and Algorithm D tests, including divisors with the top bit set and all-ones dividends
+            int[][] sizes = {{1, 1}, {5, 1}, {2, 2}, {7, 3}, {30, 29}, {60, 12}};
+            for (int[] size : sizes) {
+                passed += checkDiv(++total, random(rng, size[0]), random(rng, size[1]));
+                passed += checkDiv(++total, ones(size[0]), ones(size[1]));
+            }
+
+            // Burnikel-Ziegler tests, checked against Algorithm D as well as by multiplying back
+            int z = UIntDivider.BURNIKEL_ZIEGLER_THRESHOLD;
+            int o = UIntDivider.BURNIKEL_ZIEGLER_OFFSET;
+            sizes = new int[][]{{z + o, z}, {2 * z + o, z + 1}, {4 * z, 2 * z}, {9 * z + 5, 3 * z + 1}, {5 * z, z}};
+            for (int[] size : sizes) {
+                long[] a = random(rng, size[0]);
+                long[] b = random(rng, size[1]);
+                passed += checkDiv(++total, a, b);
+                passed += checkAgainstKnuth(++total, a, b);
+                passed += checkDiv(++total, ones(size[0]), ones(size[1]));
+            }
+
+            // Newton reciprocal tests, checked against Algorithm D as well as by multiplying back
+            int[][] newtonSizes = {{3 * 4 * z, 4 * z}, {7 * z + 3, 2 * z + 1}};
+            for (int[] size : newtonSizes) {
+                long[] a = random(rng, size[0]);
+                long[] b = random(rng, size[1]);
+                passed += checkNewton(++total, a, b);
+                passed += checkNewton(++total, ones(size[0]), ones(size[1]));
+            }
+
+            // Newton tests whose running remainder shrinks by whole limbs: a multiple of b plus one, followed by
+            //   a random block, and powers of two less one, whose remainders fall well short of the divisor
+            for (int[] size : newtonSizes) {
+                int m = size[1];
+                long[] b = random(rng, m);
+                long[] y = random(rng, size[0] - 2 * m);
+                long[] a = new long[size[0]];
+                UIntMultiplier.mul(a, m, y, 0, y.length, b, 0, m);
+                UIntLimbs.increment(a, m, a, m, size[0] - m, 1L);
+                System.arraycopy(random(rng, m), 0, a, 0, m);
+                passed += checkNewton(++total, a, b);
+            }
+            passed += checkNewton(++total, padded(BigInteger.ONE.shiftLeft(1089).subtract(BigInteger.ONE), 1089).limbs(),
+                    padded(BigInteger.ONE.shiftLeft(324).subtract(BigInteger.ONE), 324).limbs());
+            // The reciprocal is exact above its base case, here at an odd size so the halves are uneven, with the
+            //   top half of the divisor all ones
+            boolean exact = true;
+            for (int i = 0; i < 8; i++) {
+                long[] d = random(rng, 2 * z + 3);
+                Arrays.fill(d, d.length / 2, d.length, -1L);
+                long[] x = new long[d.length + 1];
+                UIntDivider.reciprocal(x, 0, d, 0, d.length);
+                BigInteger bigD = new UInt(d, 64 * d.length).toBigInteger();
+                exact &= new UInt(x, 64 * x.length).toBigInteger()
+                        .equals(BigInteger.ONE.shiftLeft(128 * d.length).divide(bigD));
+            }
+            passed += check(++total, exact);
+            int w = UIntDivider.NEWTON_THRESHOLD;
+            passed += checkDiv(++total, random(rng, 3 * w + 1), random(rng, w));
+
+            System.out.printf("%nDivTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nDivTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private static long[] random(Random rng, int n) {
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = rng.nextLong();
+        }
+        // Keep the top limb non-zero so the sizes are exactly as requested.
+        a[n - 1] |= 1L << rng.nextInt(64);
+        return a;
+    }
+
+    private static UInt padded(BigInteger v, int length) {
+        long[] limbs = Arrays.copyOf(UInt.fromBigInteger(v).limbs(), UInt.limbs(length));
+        return new UInt(limbs, length);
+    }
+
+    private static long[] ones(int n) {
+        long[] a = new long[n];
+        Arrays.fill(a, -1L);
+        return a;
+    }
+
+    private static int checkDiv(int testNum, long[] a, long[] b) {
+        long[] q = new long[a.length - b.length + 1];
+        long[] r = new long[b.length];
+        UIntDivider.divRem(q, 0, r, 0, a, 0, a.length, b, 0, b.length);
+        // Multiply back: q*b + r must give a again, and r must be smaller than b.
+        long[] back = new long[q.length + b.length];
+        UIntMultiplier.mul(back, 0, q, 0, q.length, b, 0, b.length);
+        UIntLimbs.add(back, 0, back, 0, back.length, r, 0, r.length);
+        boolean ok = UIntLimbs.compare(back, 0, back.length, a, 0, a.length) == 0
+                && UIntLimbs.compare(r, 0, r.length, b, 0, b.length) < 0;
+        if (!ok) {
+            System.out.printf("Test %d failed!  %d / %d limb division does not multiply back!%n",
+                    testNum, a.length, b.length);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkAgainstKnuth(int testNum, long[] a, long[] b) {
+        long[] q = new long[a.length - b.length + 1];
+        long[] r = new long[b.length];
+        long[] knuthQ = new long[q.length];
+        long[] knuthR = new long[r.length];
+        UIntDivider.divRem(q, 0, r, 0, a, 0, a.length, b, 0, b.length);
+        UIntDivider.knuth(knuthQ, 0, knuthR, 0, a, 0, a.length, b, 0, b.length);
+        return check(testNum, Arrays.equals(q, knuthQ) && Arrays.equals(r, knuthR));
+    }
+
+    private static int checkNewton(int testNum, long[] a, long[] b) {
+        long[] q = new long[a.length - b.length + 1];
+        long[] r = new long[b.length];
+        long[] knuthQ = new long[q.length];
+        long[] knuthR = new long[r.length];
+        UIntDivider.newton(q, 0, r, 0, a, 0, a.length, b, 0, b.length);
+        UIntDivider.knuth(knuthQ, 0, knuthR, 0, a, 0, a.length, b, 0, b.length);
+        return check(testNum, Arrays.equals(q, knuthQ) && Arrays.equals(r, knuthR));
+    }
+
+    private static int checkInt(int testNum, int test, int target) {
+        if (test == target) {
+            System.out.printf("Test %d passed!%n", testNum);
+            return 1;
+        } else {
+            System.out.printf("Test %d failed!  Expected %d, received %d!%n", testNum, target, test);
+            return 0;
+        }
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
@@ -0,0 +1,341 @@
+/**
+ * <h1>ImmutableUInt</h1>
+ * A UInt whose value no public method can change once it is built, so instances can be cached and passed to
+ *   other code without the defensive clones a mutable UInt needs.
+ * The in-place operations inherited from UInt throw UnsupportedOperationException. They are replaced by value
+ *   methods (plus, minus, times and so on) that take the same operands, return a new ImmutableUInt and leave
+ *   both operands alone. Each result adopts the limb array the arithmetic produced instead of copying it, and
+ *   when the result has the same value as this one (adding 0, dividing by 1, a remainder of a smaller value)
+ *   the existing array is shared rather than rebuilt.
+ * Both clone methods return a mutable UInt, which is the way to start a run of in-place arithmetic from a fixed value.
+ * UInt.valueOf hands out shared instances for small values from a cache, whose upper end is set by the
+ *   uint.valueOfCacheHigh system property, and the most common values are also named constants here.
+ * The guarantee is only that of the public API. The value lives in the fields inherited from UInt, which are
+ *   neither final nor private, so any class in the same package could still write them, the cached constants
+ *   included. Nothing in this library does, and everything else should go through the public methods.
+ * For the same reason this class is not safe to share across threads on its own: an instance handed to another
+ *   thread must be published safely, through a final or volatile field, a concurrent collection or a static
+ *   initializer. The named constants and the values cached for UInt.valueOf are built in static initializers,
+ *   so those can be shared with any thread.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public final class ImmutableUInt extends UInt {
+
+    public static final ImmutableUInt ZERO = cached(0L);
+    public static final ImmutableUInt ONE = cached(1L);
+    public static final ImmutableUInt TWO = cached(2L);
+    public static final ImmutableUInt TEN = cached(10L);
+
+    /**
+     * Constructs a new ImmutableUInt holding a copy of the value and length of any UInt.
+     *
+     * @param u The UInt to copy.
+     */
+    public ImmutableUInt(UInt u) {
+        super(u);
+    }
+
+    /**
+     * Constructs a new ImmutableUInt from an integer value, with the same length as new UInt(i).
+     *
+     * @param i The integer value.
+     */
+    public ImmutableUInt(int i) {
+        super(i);
+    }
+
+    /**
+     * Constructs a new ImmutableUInt from a long value, with the same length as new UInt(l).
+     *
+     * @param l The long value.
+     */
+    public ImmutableUInt(long l) {
+        super(l);
+    }
+
+    /**
+     * Constructs a new ImmutableUInt directly around the storage of a value, without copying it.
+     */
+    private ImmutableUInt(long[] bits, long small, int length) {
+        super(bits, length);
+        this.small = small;
+    }
+
+    /**
+     * Returns 2^k, with one leading zero bit (k + 2 bits in all) as with UInt.valueOf.
+     * Every power that fits in a long is built once and shared.
+     *
+     * @param k The exponent.
+     * @return The power of two.
+     * @throws IllegalArgumentException If k is negative.
+     */
+    public static ImmutableUInt powerOfTwo(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("Negative exponent: " + k);
+        }
+        if (k < 63) {
+            return Cache.POWERS[k];
+        }
+        long[] bits = new long[UInt.limbs(k + 2)];
+        bits[k >>> 6] = 1L << k;
+        return new ImmutableUInt(bits, 0L, k + 2);
+    }
+
+    /**
+     * Returns an ImmutableUInt with the value and length of u, which is u itself when it is already immutable.
+     *
+     * @param u The UInt.
+     * @return The immutable equivalent of u.
+     */
+    public static ImmutableUInt of(UInt u) {
+        return u instanceof ImmutableUInt ? (ImmutableUInt) u : new ImmutableUInt(u);
+    }
+
+    /**
+     * Returns this + u, with the same length as UInt.add.
+     *
+     * @param u The UInt to add.
+     * @return The sum.
+     */
+    public ImmutableUInt plus(UInt u) {
+        if (u.length <= length && isZero(u)) {
+            return this;
+        }
+        return adopt(UInt.add(this, u));
+    }
+
+    /**
+     * Returns this - u, with the same length as UInt.sub (and 0 when u is larger).
+     *
+     * @param u The UInt to subtract.
+     * @return The difference.
+     */
+    public ImmutableUInt minus(UInt u) {
+        if (isZero(u)) {
+            return this;
+        }
+        return adopt(UInt.sub(this, u));
+    }
+
+    /**
+     * Returns this * u, with the same length as UInt.mul.
+     *
+     * @param u The UInt to multiply by.
+     * @return The product.
+     */
+    public ImmutableUInt times(UInt u) {
+        return adopt(UInt.mul(this, u));
+    }
+
+    /**
+     * Returns this * this, with the same length as UInt.square.
+     *
+     * @return The square.
+     */
+    public ImmutableUInt squared() {
+        return adopt(UInt.square(this));
+    }
+
+    /**
+     * Returns the 2's complement of this value within its length, as UInt.negate would leave it.
+     *
+     * @return The negated value.
+     */
+    public ImmutableUInt negated() {
+        if (isZero(this)) {
+            return this;
+        }
+        UInt r = new UInt(this);
+        r.negate();
+        return adopt(r);
+    }
+
+    /**
+     * Returns this / u, rounded down, with the same length as UInt.div.
+     *
+     * @param u The divisor.
+     * @return The quotient.
+     * @throws ArithmeticException If u is 0.
+     */
+    public ImmutableUInt dividedBy(UInt u) {
+        if (u.low() == 1L && UIntLimbs.significant(u.limbs(), 0, limbs(u.length)) == 1) {
+            return this;
+        }
+        return adopt(UInt.div(this, u));
+    }
+
+    /**
+     * Returns this mod u, with the same length as UInt.rem.
+     *
+     * @param u The divisor.
+     * @return The remainder.
+     * @throws ArithmeticException If u is 0.
+     */
+    public ImmutableUInt remainder(UInt u) {
+        if (!isZero(u) && compare(this, u) < 0) {
+            // The value is its own remainder, and since it is below u every bit above u.length is already clear.
+            return u.length >= length ? this : new ImmutableUInt(bits, small, u.length);
+        }
+        return adopt(UInt.rem(this, u));
+    }
+
+    /**
+     * Returns this AND u, with the length of this value.
+     *
+     * @param u The UInt to AND against.
+     * @return The result of the AND.
+     */
+    public ImmutableUInt andWith(UInt u) {
+        if (isZero(this)) {
+            return this;
+        }
+        return adopt(UInt.and(this, u));
+    }
+
+    /**
+     * Returns this OR u, with the length of this value.
+     *
+     * @param u The UInt to OR against.
+     * @return The result of the OR.
+     */
+    public ImmutableUInt orWith(UInt u) {
+        if (isZero(u)) {
+            return this;
+        }
+        return adopt(UInt.or(this, u));
+    }
+
+    /**
+     * Returns this XOR u, with the length of this value.
+     *
+     * @param u The UInt to XOR against.
+     * @return The result of the XOR.
+     */
+    public ImmutableUInt xorWith(UInt u) {
+        if (isZero(u)) {
+            return this;
+        }
+        return adopt(UInt.xor(this, u));
+    }
+
+    /**
+     * Returns this AND NOT u, with the length of this value.
+     *
+     * @param u The UInt whose set bits are cleared.
+     * @return The result of the AND NOT.
+     */
+    public ImmutableUInt andNotWith(UInt u) {
+        if (isZero(u)) {
+            return this;
+        }
+        return adopt(UInt.andNot(this, u));
+    }
+
+    /**
+     * Returns the 1's complement of this value within its length, as UInt.not would leave it.
+     *
+     * @return The complemented value.
+     */
+    public ImmutableUInt complemented() {
+        return adopt(UInt.not(this));
+    }
+
+    /**
+     * Returns whether o is an ImmutableUInt holding the same value with the same length.
+     *
+     * @param o The object to compare against.
+     * @return Whether the two are equal.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (!(o instanceof ImmutableUInt)) {
+            return false;
+        }
+        ImmutableUInt u = (ImmutableUInt) o;
+        return u.length == length && compare(this, u) == 0;
+    }
+
+    /**
+     * Returns a hash of the value and length, consistent with equals whether the value is held inline or in limbs.
+     *
+     * @return The hash code.
+     */
+    @Override
+    public int hashCode() {
+        long[] b = limbs();
+        int h = length;
+        for (int i = UIntLimbs.significant(b, 0, limbs(length)) - 1; i >= 0; i--) {
+            h = 31 * h + Long.hashCode(b[i]);
+        }
+        return h;
+    }
+
+    /**
+     * Rejects every in-place operation inherited from UInt.
+     */
+    @Override
+    void checkMutable() {
+        throw new UnsupportedOperationException("ImmutableUInt cannot be modified");
+    }
+
+    /**
+     * Returns the unsigned value of a long as an ImmutableUInt, from the cache when it is in range (see UInt.valueOf).
+     */
+    static ImmutableUInt cached(long value) {
+        if (value >= 0 && value <= Cache.HIGH) {
+            return Cache.VALUES[(int) value];
+        }
+        return new ImmutableUInt(value);
+    }
+
+    /**
+     * The shared instances, built the first time any of them is needed.
+     */
+    private static final class Cache {
+
+        // The largest value kept in VALUES.
+        static final int HIGH = Math.max(10, Integer.getInteger("uint.valueOfCacheHigh", 1024));
+
+        // VALUES[i] holds i, and POWERS[k] holds 2^k.
+        static final ImmutableUInt[] VALUES = new ImmutableUInt[HIGH + 1];
+        static final ImmutableUInt[] POWERS = new ImmutableUInt[63];
+
+        static {
+            for (int i = 0; i < VALUES.length; i++) {
+                VALUES[i] = new ImmutableUInt((long) i);
+            }
+            for (int k = 0; k < POWERS.length; k++) {
+                POWERS[k] = (1L << k) <= HIGH ? VALUES[1 << k] : new ImmutableUInt(1L << k);
+            }
+        }
+    }
+
+    /**
+     * Takes over the storage of a freshly computed UInt that nothing else refers to.
+     */
+    private static ImmutableUInt adopt(UInt r) {
+        return new ImmutableUInt(r.bits, r.small, r.length);
+    }
+
+    /**
+     * Returns whether the value of u is 0.
+     */
+    private static boolean isZero(UInt u) {
+        return u.bits == null ? u.small == 0L : UIntLimbs.significant(u.bits, 0, limbs(u.length)) == 0;
+    }
+
+    /**
+     * Compares the values of two UInts, ignoring their lengths.
+     */
+    private static int compare(UInt a, UInt b) {
+        if (a.bits == null && b.bits == null) {
+            return Long.compareUnsigned(a.small, b.small);
+        }
+        return UIntLimbs.compare(a.limbs(), 0, limbs(a.length), b.limbs(), 0, limbs(b.length));
+    }
+}
@@ -0,0 +1,172 @@
+import java.util.Random;
+
+/**
+ * <h1>ModTest</h1>
+ * A randomized testing script for the modular arithmetic built on UInt.
+ * Every fast reduction is checked against the plain UInt.mul and UInt.rem result for the same inputs.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class ModTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // Montgomery tests on the values from Test, modulo 943 (which is odd)
+            UInt u1 = new UInt(157);
+            UInt u2 = new UInt(943);
+            UInt u3 = new UInt(212);
+            UIntMontgomery small = new UIntMontgomery(u2);
+            UInt product = small.mulMod(small.toMontgomery(u1), small.toMontgomery(u3));
+            passed += checkInt(++total, small.fromMontgomery(product).toInt(), 157 * 212 % 943);
+            passed += checkInt(++total, small.fromMontgomery(small.one()).toInt(), 1);
+            passed += checkInt(++total, small.fromMontgomery(small.toMontgomery(u1)).toInt(), 157);
+            try {
+                new UIntMontgomery(u3);
+                passed += check(++total, false);
+            } catch (IllegalArgumentException ex) {
+                passed += check(++total, true);
+            }
+
+            // Montgomery tests on random moduli from one limb up to a few hundred, with chains of products
+            int[] sizes = {1, 2, 5, 40, 130, 300};
+            for (int n : sizes) {
+                UInt m = random(rng, n);
+                m.bits[0] |= 1L;
+                UIntMontgomery ctx = new UIntMontgomery(m);
+                UInt a = random(rng, n + 2);
+                UInt b = random(rng, n);
+                UInt expected = UInt.rem(a, m);
+                UInt am = ctx.toMontgomery(a);
+                UInt acc = ctx.mulMod(ctx.one(), am);
+                for (int i = 0; i < 5; i++) {
+                    acc = ctx.mulMod(acc, am);
+                    expected = UInt.rem(UInt.mul(expected, a), m);
+                }
+                acc = ctx.mulMod(acc, ctx.toMontgomery(b));
+                expected = UInt.rem(UInt.mul(expected, b), m);
+                passed += checkEqual(++total, ctx.fromMontgomery(acc), expected);
+                passed += checkEqual(++total, ctx.fromMontgomery(ctx.squareMod(am)), UInt.rem(UInt.square(a), m));
+            }
+
+            // Barrett tests on the values from Test, modulo 212 (which is even)
+            UIntBarrett barrett = new UIntBarrett(u3);
+            passed += checkInt(++total, UInt.rem(u2, barrett).toInt(), 943 % 212);
+            passed += checkInt(++total, UInt.rem(u1, barrett).toInt(), 157);
+            passed += checkInt(++total, barrett.mulMod(u1, u2).toInt(), 157 * 943 % 212);
+            try {
+                new UIntBarrett(UInt.sub(u1, u2));
+                passed += check(++total, false);
+            } catch (ArithmeticException ex) {
+                passed += check(++total, true);
+            }
+
+            // Barrett tests on random moduli, including a power of 2^64, against UInt.rem
+            for (int n : sizes) {
+                UInt m = random(rng, n);
+                if (n == 2) {
+                    m = new UInt(new long[]{0L, 1L}, 65);
+                }
+                UIntBarrett ctx = new UIntBarrett(m);
+                UInt a = random(rng, 2 * n);
+                UInt b = random(rng, n + 1);
+                UInt r = new UInt(a);
+                r.rem(ctx);
+                passed += checkEqual(++total, r, UInt.rem(a, m));
+                passed += checkEqual(++total, UInt.rem(b, ctx), UInt.rem(b, m));
+                passed += checkEqual(++total, ctx.mulMod(a, b), UInt.rem(UInt.mul(UInt.rem(a, m), UInt.rem(b, m)), m));
+            }
+
+            // modPow tests against repeated multiplication, for odd and even moduli and every window size
+            passed += checkInt(++total, UInt.modPow(u1, u3, u2).toInt(), pow(157, 212, 943));
+            passed += checkInt(++total, UInt.modPow(u1, u2, u3).toInt(), pow(157, 943, 212));
+            passed += checkInt(++total, UInt.modPow(u3, UInt.sub(u1, u2), u2).toInt(), 1);
+            passed += checkInt(++total, UInt.modPow(u3, u1, new UInt(1)).toInt(), 0);
+            try {
+                UInt.modPow(u1, u3, UInt.sub(u1, u2));
+                passed += check(++total, false);
+            } catch (ArithmeticException ex) {
+                passed += check(++total, true);
+            }
+            int[] exponents = {3, 20, 60, 200, 500, 1500, 2000};
+            for (int bits : exponents) {
+                UInt m = random(rng, 3);
+                if (bits % 2 == 0) {
+                    m.bits[0] &= ~1L;
+                } else {
+                    m.bits[0] |= 1L;
+                }
+                UInt base = random(rng, 4);
+                UInt exponent = random(rng, (bits + 63) / 64);
+                exponent.bits[exponent.bits.length - 1] >>>= -bits & 63;
+                exponent.bits[exponent.bits.length - 1] |= 1L << ((bits - 1) & 63);
+                passed += checkEqual(++total, UInt.modPow(base, exponent, m), slowModPow(base, exponent, bits, m));
+            }
+            UInt x = new UInt(u1);
+            x.modPow(u3, u2);
+            passed += checkInt(++total, x.toInt(), pow(157, 212, 943));
+
+            System.out.printf("%nModTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nModTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private static UInt slowModPow(UInt base, UInt exponent, int bits, UInt m) {
+        UInt result = UInt.rem(new UInt(1), m);
+        for (int i = bits - 1; i >= 0; i--) {
+            result = UInt.rem(UInt.square(result), m);
+            if ((exponent.bits[i >>> 6] >>> i & 1L) != 0) {
+                result = UInt.rem(UInt.mul(result, base), m);
+            }
+        }
+        return result;
+    }
+
+    private static int pow(int base, int exponent, int m) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result = result * base % m;
+        }
+        return (int) result;
+    }
+
+    private static UInt random(Random rng, int n) {
+        long[] limbs = new long[n];
+        for (int i = 0; i < n; i++) {
+            limbs[i] = rng.nextLong();
+        }
+        return new UInt(limbs, 64 * n);
+    }
+
+    private static int checkEqual(int testNum, UInt test, UInt target) {
+        // Lengths may differ, so the values are compared by their difference in both directions.
+        boolean ok = UInt.sub(test, target).toString().indexOf('1') < 0
+                && UInt.sub(target, test).toString().indexOf('1') < 0;
+        if (!ok) {
+            System.out.printf("Test %d failed!  Expected %s, received %s!%n", testNum, target, test);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkInt(int testNum, int test, int target) {
+        if (test == target) {
+            System.out.printf("Test %d passed!%n", testNum);
+            return 1;
+        } else {
+            System.out.printf("Test %d failed!  Expected %d, received %d!%n", testNum, target, test);
+            return 0;
+        }
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
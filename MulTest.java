@@ -0,0 +1,176 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>MulTest</h1>
+ * A randomized testing script for the multiplication engine behind UInt.mul.
+ * Every fast multiplication tier is checked against the word-level schoolbook multiply on random inputs,
+ *   with operand sizes chosen to land on both sides of each crossover.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class MulTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // Karatsuba tests, including unbalanced operands and operands that are all ones
+            int k = UIntMultiplier.KARATSUBA_THRESHOLD;
+            int[][] sizes = {{k, k}, {k + 1, k}, {2 * k - 1, k}, {3 * k, k}, {5 * k + 3, 2 * k + 1}, {8 * k, 8 * k}};
+            for (int[] size : sizes) {
+                passed += checkMul(++total, random(rng, size[0]), random(rng, size[1]));
+                passed += checkMul(++total, ones(size[0]), ones(size[1]));
+            }
+
+            // Toom-Cook 3 tests, including sizes whose top pieces are short and operands that are all ones
+            int t = UIntMultiplier.TOOM_COOK_THRESHOLD;
+            sizes = new int[][]{{t, t}, {t + 1, t}, {t + 2, t + 2}, {3 * t, 3 * t - 2}, {4 * t + 1, 3 * t}};
+            for (int[] size : sizes) {
+                passed += checkMul(++total, random(rng, size[0]), random(rng, size[1]));
+                passed += checkMul(++total, ones(size[0]), ones(size[1]));
+            }
+            for (int i = 0; i < 10; i++) {
+                int n = t + rng.nextInt(3 * t);
+                passed += checkMul(++total, random(rng, n), random(rng, n - rng.nextInt(n / 3)));
+            }
+
+            // NTT tests, including products whose digits all carry and an unbalanced pair
+            int f = UIntMultiplier.NTT_THRESHOLD;
+            sizes = new int[][]{{f, f}, {f + 7, f + 1}, {2 * f - 1, f}};
+            for (int[] size : sizes) {
+                passed += checkMul(++total, random(rng, size[0]), random(rng, size[1]));
+            }
+            passed += checkMul(++total, ones(f), ones(f));
+
+            // An NTT product through the public API must print exactly like the schoolbook product
+            UInt x = fromLimbs(random(rng, f + 3), (f + 3) * 64 - 1);
+            UInt y = fromLimbs(random(rng, f), f * 64 - 2);
+            UInt z = UInt.mul(x, y);
+            UInt expectedProduct = new UInt(1);
+            expectedProduct.bits = new long[2 * f + 3];
+            expectedProduct.length = x.length + y.length;
+            UIntMultiplier.mulBasecase(expectedProduct.bits, 0, x.bits, 0, f + 3, y.bits, 0, f);
+            passed += check(++total, z.toString().equals(expectedProduct.toString()));
+
+            // Squaring tests at every tier, checked against the schoolbook product of two separate copies
+            int[] squares = {1, 2, k - 1, k, 3 * k + 1, t, 2 * t + 5, f, f + 9};
+            for (int n : squares) {
+                passed += checkSquare(++total, random(rng, n));
+            }
+            passed += checkSquare(++total, ones(t + 3));
+
+            // Multiplying a UInt by itself must match squaring a clone of it
+            UInt s = fromLimbs(random(rng, 2 * t), 2 * t * 64 - 3);
+            UInt sq = UInt.square(s);
+            s.mul(s);
+            passed += check(++total, s.length == sq.length && s.toString().equals(sq.toString()));
+
+            // The same product through the public API, where the length becomes X+Y
+            UInt a = fromLimbs(random(rng, 4 * k), 4 * k * 64);
+            UInt b = fromLimbs(random(rng, 3 * k), 3 * k * 64 - 5);
+            UInt p = UInt.mul(a, b);
+            long[] expected = new long[7 * k];
+            UIntMultiplier.mulBasecase(expected, 0, a.bits, 0, 4 * k, b.bits, 0, 3 * k);
+            passed += check(++total, p.length == 7 * k * 64 - 5 && Arrays.equals(p.bits, expected));
+
+            // Three-operand forms: a stale, larger destination is overwritten and cleared above the product,
+            //   an aliased destination matches the fresh product, and spare capacity is reused instead of replaced
+            UInt dest = fromLimbs(ones(12 * k), 12 * k * 64);
+            long[] storage = dest.bits;
+            UInt.mul(a, b, dest);
+            passed += check(++total, dest.bits == storage && dest.length == p.length
+                    && dest.toString().equals(p.toString()) && dest.bits[7 * k] == 0L && dest.bits[12 * k - 1] == 0L);
+            UInt c = a.clone();
+            UInt.mul(c, b, c);
+            passed += check(++total, c.length == p.length && c.toString().equals(p.toString()));
+            c = b.clone();
+            UInt.mul(a, c, c);
+            passed += check(++total, c.length == p.length && c.toString().equals(p.toString()));
+            c = a.clone();
+            c.ensureCapacity(16 * k * 64);
+            storage = c.bits;
+            UInt.square(c, c);
+            passed += check(++total, c.bits == storage && c.toString().equals(UInt.square(a).toString()));
+            storage = dest.bits;
+            UInt.add(a, b, dest);
+            passed += check(++total, dest.bits == storage && dest.toString().equals(UInt.add(a, b).toString()));
+
+            // Values of up to 64 bits are held inline: a product or sum that outgrows a limb moves into an array,
+            //   and a clone of a short array-backed value keeps the same digits, leading zeros included
+            long[] u = random(rng, 1);
+            long[] v = random(rng, 1);
+            UInt ui = new UInt(fromLimbs(u, 64));
+            UInt vi = new UInt(fromLimbs(v, 64));
+            expected = new long[2];
+            UIntMultiplier.mulBasecase(expected, 0, u, 0, 1, v, 0, 1);
+            p = UInt.mul(ui, vi);
+            passed += check(++total, ui.bits == null && p.length == 128 && Arrays.equals(p.bits, expected));
+            UInt sum = UInt.add(new UInt(fromLimbs(ones(1), 64)), new UInt(1));
+            passed += check(++total, sum.length == 65 && sum.bits[0] == 0L && sum.bits[1] == 1L);
+            UInt narrow = fromLimbs(new long[]{5L, 0L}, 10);
+            passed += check(++total, new UInt(narrow).bits == null && new UInt(narrow).toString().equals("0b0000000101"));
+
+            System.out.printf("%nMulTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nMulTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private static long[] random(Random rng, int n) {
+        long[] a = new long[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = rng.nextLong();
+        }
+        return a;
+    }
+
+    private static long[] ones(int n) {
+        long[] a = new long[n];
+        Arrays.fill(a, -1L);
+        return a;
+    }
+
+    private static UInt fromLimbs(long[] limbs, int length) {
+        UInt u = new UInt(1);
+        u.bits = limbs;
+        u.length = length;
+        u.clearHighBits();
+        return u;
+    }
+
+    private static int checkMul(int testNum, long[] a, long[] b) {
+        long[] expected = new long[a.length + b.length];
+        long[] actual = new long[a.length + b.length];
+        UIntMultiplier.mulBasecase(expected, 0, a, 0, a.length, b, 0, b.length);
+        UIntMultiplier.mul(actual, 0, a, 0, a.length, b, 0, b.length);
+        if (!Arrays.equals(expected, actual)) {
+            System.out.printf("Test %d failed!  %d x %d limb product differs from the schoolbook result!%n",
+                    testNum, a.length, b.length);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkSquare(int testNum, long[] a) {
+        long[] expected = new long[2 * a.length];
+        long[] actual = new long[2 * a.length];
+        UIntMultiplier.mulBasecase(expected, 0, a, 0, a.length, a.clone(), 0, a.length);
+        UIntMultiplier.square(actual, 0, a, 0, a.length);
+        if (!Arrays.equals(expected, actual)) {
+            System.out.printf("Test %d failed!  %d limb square differs from the schoolbook result!%n", testNum, a.length);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
@@ -0,0 +1,192 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>SegmentTest</h1>
+ * A randomized testing script for UIntSegment.
+ * Every operation is run on a segment and on a UInt holding the same value, and the two must agree in both value
+ *   and length, for lengths on both sides of a limb. Values are also moved in and out of native memory, heap
+ *   arrays and mapped files, and must come back unchanged.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class SegmentTest {
+
+    // Little-endian limbs, as UIntSegment stores them.
+    private static final ValueLayout.OfLong LIMB = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    public static void main(String[] args) {
+        try (Arena arena = Arena.ofConfined()) {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // A new segment is zero at the length it was given, and copyOf and toUInt give back the same value
+            UIntSegment zero = UIntSegment.allocate(arena, 130);
+            passed += check(++total, zero.length() == 130 && zero.toUInt().toBigInteger().signum() == 0
+                    && zero.toString().equals("0b" + "0".repeat(130)));
+            int[] widths = {1, 63, 64, 65, 200, 1000};
+            for (int w : widths) {
+                UInt u = random(rng, w);
+                UIntSegment s = UIntSegment.copyOf(u, arena);
+                UInt back = s.toUInt();
+                passed += check(++total, s.length() == w && s.segment().isNative()
+                        && back.length == w && back.toString().equals(u.toString()) && s.toString().equals(u.toString()));
+            }
+
+            // wrap shares the limbs of a UInt, so changes through the view show up in it, but never in an ImmutableUInt
+            UInt shared = random(rng, 200);
+            UInt expected = shared.clone();
+            UIntSegment view = UIntSegment.wrap(shared);
+            view.negate();
+            expected.negate();
+            passed += check(++total, shared.toString().equals(expected.toString()) && view.toUInt().toString().equals(expected.toString()));
+            ImmutableUInt fixed = ImmutableUInt.of(random(rng, 200));
+            String before = fixed.toString();
+            UIntSegment copy = UIntSegment.wrap(fixed);
+            copy.negate();
+            passed += check(++total, fixed.toString().equals(before) && !copy.toString().equals(before));
+
+            // Every operation against UInt, with operands of equal and unequal lengths, and all ones
+            Op[] ops = {
+                    new Op("and", (s, t) -> s.and(t), (u, v) -> u.and(v)),
+                    new Op("or", (s, t) -> s.or(t), (u, v) -> u.or(v)),
+                    new Op("xor", (s, t) -> s.xor(t), (u, v) -> u.xor(v)),
+                    new Op("add", (s, t) -> s.add(t), (u, v) -> u.add(v)),
+                    new Op("sub", (s, t) -> s.sub(t), (u, v) -> u.sub(v)),
+                    new Op("mul", (s, t) -> s.mul(t), (u, v) -> u.mul(v)),
+                    new Op("div", (s, t) -> s.div(t), (u, v) -> u.div(v)),
+                    new Op("rem", (s, t) -> s.rem(t), (u, v) -> u.rem(v)),
+                    new Op("negate", (s, t) -> s.negate(), (u, v) -> u.negate())
+            };
+            int[][] pairs = {{64, 64}, {65, 63}, {200, 130}, {130, 200}, {1000, 65}};
+            for (Op op : ops) {
+                for (int[] pair : pairs) {
+                    passed += checkOp(++total, arena, op, random(rng, pair[0]), random(rng, pair[1]));
+                }
+                passed += checkOp(++total, arena, op, ones(200), ones(200));
+            }
+            UInt small = random(rng, 130);
+            UInt large = UInt.add(small, new UInt(1));
+            passed += check(++total, UIntSegment.copyOf(small, arena).compareTo(UIntSegment.copyOf(large, arena)) < 0
+                    && UIntSegment.copyOf(large, arena).compareTo(UIntSegment.wrap(small.clone())) > 0
+                    && UIntSegment.copyOf(small, arena).compareTo(UIntSegment.wrap(small.clone())) == 0);
+
+            // Mapped files, whose top limb holds set bits above the length: a READ_WRITE mapping clears them in the
+            //   file and writes results straight through, and a READ_ONLY mapping leaves the file alone but never
+            //   lets them into the value
+            Path file = Files.createTempFile("SegmentTest", ".bin");
+            try {
+                passed += checkMap(++total, arena, file, FileChannel.MapMode.READ_WRITE, random(rng, 130));
+                passed += checkMap(++total, arena, file, FileChannel.MapMode.READ_ONLY, random(rng, 130));
+                passed += checkMap(++total, arena, file, FileChannel.MapMode.READ_ONLY, random(rng, 64));
+            } finally {
+                Files.delete(file);
+            }
+
+            System.out.printf("%nSegmentTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nSegmentTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private interface SegmentOp {
+        void apply(UIntSegment s, UIntSegment t);
+    }
+
+    private interface UIntOp {
+        void apply(UInt u, UInt v);
+    }
+
+    private record Op(String name, SegmentOp segment, UIntOp uint) {
+    }
+
+    private static UInt random(Random rng, int w) {
+        return withLength(new BigInteger(w, rng).setBit(w - 1), w);
+    }
+
+    private static UInt ones(int w) {
+        return withLength(BigInteger.ONE.shiftLeft(w).subtract(BigInteger.ONE), w);
+    }
+
+    private static UInt withLength(BigInteger v, int w) {
+        long[] limbs = Arrays.copyOf(UInt.fromBigInteger(v).limbs(), UInt.limbs(w));
+        return w <= 64 ? new UInt(limbs[0], w) : new UInt(limbs, w);
+    }
+
+    private static int checkOp(int testNum, Arena arena, Op op, UInt a, UInt b) {
+        UIntSegment s = UIntSegment.copyOf(a, arena);
+        UInt expected = a.clone();
+        op.uint().apply(expected, b);
+        op.segment().apply(s, UIntSegment.copyOf(b, arena));
+        if (s.length() != expected.length || !s.toString().equals(expected.toString())
+                || !s.toUInt().toBigInteger().equals(expected.toBigInteger())) {
+            System.out.printf("Test %d failed!  %s of %d and %d bits differs from UInt!%n", testNum, op.name(),
+                    a.length, b.length);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkMap(int testNum, Arena arena, Path file, FileChannel.MapMode mode, UInt u)
+            throws IOException {
+        // Write the limbs at an offset, with every bit of the top limb above the length set.
+        int n = UInt.limbs(u.length);
+        ByteBuffer buf = ByteBuffer.allocate(16 + 8 * n).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putLong(0, -1L).putLong(8, -1L);
+        for (int i = 0; i < n; i++) {
+            buf.putLong(16 + 8 * i, u.limbs()[i]);
+        }
+        buf.putLong(8 + 8 * n, u.limbs()[n - 1] | (u.length % 64 == 0 ? 0L : -1L << u.length));
+        boolean writable = mode == FileChannel.MapMode.READ_WRITE;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ch.write(buf);
+        }
+        boolean ok;
+        try (FileChannel ch = writable ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            UIntSegment s = UIntSegment.map(ch, mode, 16, u.length, arena);
+            ok = s.length() == u.length && s.toString().equals(u.toString())
+                    && s.toUInt().toString().equals(u.toString())
+                    && s.compareTo(UIntSegment.copyOf(u, arena)) == 0;
+            // As the second operand the mapping adds in its value alone.
+            UIntSegment sum = UIntSegment.copyOf(new UInt(1), arena);
+            sum.add(s);
+            ok &= sum.toString().equals(UInt.add(new UInt(1), u).toString());
+            if (writable) {
+                s.add(UIntSegment.copyOf(u, arena));
+                ok &= s.toString().equals(UInt.add(u, u).toString());
+            }
+        }
+        // The file holds the sum, with nothing above it, when writable, and is unchanged when read-only.
+        MemorySegment bytes = MemorySegment.ofArray(Files.readAllBytes(file));
+        if (writable) {
+            long[] limbs = new long[n];
+            MemorySegment.copy(bytes, LIMB, 16, limbs, 0, n);
+            ok &= new UInt(limbs, 64 * n).toBigInteger().equals(UInt.add(u, u).toBigInteger());
+        } else {
+            ok &= bytes.asByteBuffer().equals(buf.rewind());
+        }
+        return check(testNum, ok);
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
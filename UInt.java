@@ -2,24 +2,40 @@
  * @auth
  */
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigInteger;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 
 /**
  * <h1>UInt</h1>
- * Represents an unsigned integer using a boolean array to store the binary representation.
- * Each bit is stored as a boolean value, where true represents 1 and false represents 0.
+ * Represents an unsigned integer using an array of 64-bit limbs to store the binary representation.
+ * The limbs are stored least-significant first, so bit b of the value lives in bits[b / 64] at position b % 64.
+ * Any bits above length are always kept at 0, which lets every operation work a whole limb at a time.
+ * Values of up to 64 bits start out inline, held in a single long with no limb array at all, and operations
+ *   between such values run on that long directly. The array is only created once a result outgrows 64 bits.
+ * Every operation changes this UInt in place. ImmutableUInt is the variant whose operations return new values.
  *
  * @author Tim Fielder
  * @version 1.0 (Sept 30, 2024)
  */
 public class UInt {
 
-    // The array representing the bits of the unsigned integer.
-    protected boolean[] bits;
+    // The array of 64-bit limbs holding the bits of the unsigned integer, least-significant limb first.
+    // Its size is the capacity, which may run past limbs(length); the limbs in between are always 0.
+    // It is null while the value is held inline in small.
+    protected long[] bits;
+
+    // The value itself while bits is null, which is only allowed when length is at most 64.
+    protected long small;
 
     // The number of bits used to represent the unsigned integer.
     protected int length;
 
+    // Reads and writes whole limbs in the big-endian byte arrays used by BigInteger.
+    private static final VarHandle BIG_ENDIAN_LIMB = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
     /**
      * Constructs a new UInt by cloning an existing UInt object.
      *
@@ -27,36 +43,102 @@ public class UInt {
      */
     public UInt(UInt toClone) {
         this.length = toClone.length;
-        this.bits = Arrays.copyOf(toClone.bits, this.length);
+        // A clone that fits in 64 bits is made inline, whichever form the original is in.
+        if (this.length <= 64) {
+            this.small = toClone.low();
+        } else {
+            this.bits = Arrays.copyOf(toClone.bits, limbs(this.length));
+        }
+    }
+
+    /**
+     * Constructs a new UInt holding 0 in 0 bits, inline.
+     */
+    private UInt() {
+    }
+
+    /**
+     * Constructs a new UInt directly around an array of limbs, without copying it.
+     * The array must hold at least limbs(length) limbs, with every bit above length clear.
+     *
+     * @param bits The limbs of the new UInt, least-significant first.
+     * @param length The number of bits in the new UInt.
+     */
+    UInt(long[] bits, int length) {
+        this.bits = bits;
+        this.length = length;
     }
 
     /**
      * Constructs a new UInt from an integer value.
-     * The integer is converted to its binary representation and stored in the bits array.
+     * The integer is read as unsigned, and the length is the number of significant bits plus one leading zero,
+     *   so 0 is a single 0 bit and 64 is 0b01000000.
      *
      * @param i The integer value to convert to a UInt.
      */
     public UInt(int i) {
-        // Determine the number of bits needed to store i in binary format.
-        length = (int)(Math.ceil(Math.log(i)/Math.log(2.0)) + 1);
-        bits = new boolean[length];
-
-        // Convert the integer to binary and store each bit in the array.
-        for (int b = length-1; b >= 0; b--) {
-            // We use a ternary to decompose the integer into binary digits, starting with the 1s place.
-            bits[b] = i % 2 == 1;
-            // Right shift the integer to process the next bit.
-            i = i >> 1;
-
-            // Deprecated analog method
-            /*int p = 0;
-            while (Math.pow(2, p) < i) {
-                p++;
-            }
-            p--;
-            bits[p] = true;
-            i -= Math.pow(2, p);*/
+        // An int always fits in 64 bits, so the value is kept inline and no limb array is needed.
+        length = 33 - Integer.numberOfLeadingZeros(i);
+        small = Integer.toUnsignedLong(i);
+    }
+
+    /**
+     * Constructs a new UInt from a long value.
+     * As with UInt(int), the long is read as unsigned and given one leading zero bit.
+     *
+     * @param l The long value to convert to a UInt.
+     */
+    public UInt(long l) {
+        length = 65 - Long.numberOfLeadingZeros(l);
+        if (length <= 64) {
+            small = l;
+        } else {
+            // Only a long with its top bit set needs the leading zero in a second limb.
+            bits = new long[]{l, 0L};
+        }
+    }
+
+    /**
+     * Constructs a new UInt with the given length from a long value.
+     * Bits of the value at or above width are dropped, as they are when any other operation fills a fixed length.
+     *
+     * @param l The long value to convert to a UInt.
+     * @param width The number of bits in the new UInt.
+     * @throws IllegalArgumentException If width is negative.
+     */
+    public UInt(long l, int width) {
+        if (width < 0) {
+            throw new IllegalArgumentException("Negative width: " + width);
         }
+        length = width;
+        if (width <= 64) {
+            small = truncate(l, width);
+        } else {
+            bits = new long[limbs(width)];
+            bits[0] = l;
+        }
+    }
+
+    /**
+     * Returns a shared, immutable UInt holding the unsigned value of an int, with the same length as new UInt(i).
+     * Values from 0 up to the uint.valueOfCacheHigh system property (1024 by default) come from a cache,
+     *   so asking for them again costs nothing.
+     *
+     * @param i The value, read as unsigned.
+     * @return The ImmutableUInt holding the value.
+     */
+    public static ImmutableUInt valueOf(int i) {
+        return ImmutableUInt.cached(Integer.toUnsignedLong(i));
+    }
+
+    /**
+     * Returns a shared, immutable UInt holding the unsigned value of a long, as with valueOf(int).
+     *
+     * @param l The value, read as unsigned.
+     * @return The ImmutableUInt holding the value.
+     */
+    public static ImmutableUInt valueOf(long l) {
+        return ImmutableUInt.cached(l);
     }
 
     /**
@@ -85,15 +167,8 @@ public class UInt {
      * @return The integer value corresponding to this UInt.
      */
     public int toInt() {
-        int t = 0;
-        // Traverse the bits array to reconstruct the integer value.
-        for (int i = 0; i < length; i++) {
-            // Again, using a ternary to now re-construct the int value, starting with the most-significant bit.
-            t = t + (bits[i] ? 1 : 0);
-            // Shift the value left for the next bit.
-            t = t << 1;
-        }
-        return t >> 1; // Adjust for the last shift.
+        // The low 32 bits of the value all live in the first limb, so a narrowing cast is all we need.
+        return (int) low();
     }
 
     /**
@@ -106,6 +181,103 @@ public class UInt {
         return u.toInt();
     }
 
+    /**
+     * Converts this UInt to a long holding its low 64 bits.
+     * As with toInt, any higher bits are dropped, and a value with bit 63 set comes out negative.
+     *
+     * @return The low 64 bits of this UInt.
+     */
+    public long toLong() {
+        return low();
+    }
+
+    /**
+     * Static method to retrieve the long value from a generic UInt object.
+     *
+     * @param u The UInt to convert.
+     * @return The low 64 bits of u.
+     */
+    public static long toLong(UInt u) {
+        return u.toLong();
+    }
+
+    /**
+     * Converts this UInt to an int, checking that the value fits.
+     *
+     * @return The int value of this UInt.
+     * @throws ArithmeticException If the value is larger than Integer.MAX_VALUE.
+     */
+    public int toIntExact() {
+        long v = toLongExact();
+        if (v > Integer.MAX_VALUE) {
+            throw new ArithmeticException("UInt overflows an int");
+        }
+        return (int) v;
+    }
+
+    /**
+     * Converts this UInt to a long, checking that the value fits.
+     *
+     * @return The long value of this UInt.
+     * @throws ArithmeticException If the value is larger than Long.MAX_VALUE.
+     */
+    public long toLongExact() {
+        long v = low();
+        if (v < 0 || (bits != null && UIntLimbs.significant(bits, 0, limbs(length)) > 1)) {
+            throw new ArithmeticException("UInt overflows a long");
+        }
+        return v;
+    }
+
+    /**
+     * Converts this UInt to a BigInteger with the same value.
+     * The limbs are copied eight bytes at a time into the big-endian magnitude BigInteger expects.
+     *
+     * @return The BigInteger.
+     */
+    public BigInteger toBigInteger() {
+        if (bits == null && small >= 0) {
+            return BigInteger.valueOf(small);
+        }
+        long[] b = limbs();
+        int n = UIntLimbs.significant(b, 0, limbs(length));
+        byte[] magnitude = new byte[8 * n];
+        for (int i = 0; i < n; i++) {
+            BIG_ENDIAN_LIMB.set(magnitude, 8 * (n - 1 - i), b[i]);
+        }
+        return new BigInteger(1, magnitude);
+    }
+
+    /**
+     * Converts a non-negative BigInteger to a UInt with the same value.
+     * As with the constructors, the length is the bit length of the value plus one leading zero.
+     *
+     * @param v The value to convert.
+     * @return A new UInt holding v.
+     * @throws IllegalArgumentException If v is negative.
+     */
+    public static UInt fromBigInteger(BigInteger v) {
+        if (v.signum() < 0) {
+            throw new IllegalArgumentException("UInt cannot hold a negative value");
+        }
+        if (v.bitLength() < 64) {
+            return new UInt(v.longValue());
+        }
+        // The magnitude is big-endian with a sign bit on top, so the limbs are read from the end of the array.
+        byte[] magnitude = v.toByteArray();
+        int len = v.bitLength() + 1;
+        long[] limbs = new long[limbs(len)];
+        int i = 0;
+        int end = magnitude.length;
+        for (; end >= 8; end -= 8) {
+            limbs[i++] = (long) BIG_ENDIAN_LIMB.get(magnitude, end - 8);
+        }
+        for (int j = 0; j < end; j++) {
+            limbs[i] = limbs[i] << 8 | (magnitude[j] & 0xFFL);
+        }
+        return new UInt(limbs, len);
+    }
+
     /**
      * Returns a String representation of this binary object with a leading 0b.
      *
@@ -113,41 +285,115 @@ public class UInt {
      */
     @Override
     public String toString() {
-        StringBuilder s = new StringBuilder("0b");
+        StringBuilder s = new StringBuilder(length + 2).append("0b");
         // Construct the String starting with the most-significant bit.
-        for (int i = 0; i < length; i++) {
-            // Again, we use a ternary here to convert from true/false to 1/0
-            s.append(bits[i] ? "1" : "0");
+        for (int i = length - 1; i >= 0; i--) {
+            // Pick bit i out of its limb and convert it to a 1/0 character.
+            long limb = bits == null ? small : bits[i >>> 6];
+            s.append((limb >>> i & 1L) == 1L ? '1' : '0');
         }
         return s.toString();
     }
 
+    /**
+     * Returns the value of this UInt written in the given radix, with no prefix and no leading zeros.
+     * Radices that are powers of two take each digit straight from the bits of the limbs. In any other radix,
+     *   large values are split in half recursively on cached powers of the radix, so the cost follows UInt.div
+     *   rather than growing with the square of the number of digits (see UIntRadix).
+     *
+     * @param radix The radix, from Character.MIN_RADIX to Character.MAX_RADIX.
+     * @return The digits, using lowercase letters past 9.
+     * @throws IllegalArgumentException If the radix is out of range.
+     */
+    public String toString(int radix) {
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+            throw new IllegalArgumentException("Radix out of range: " + radix);
+        }
+        if (bits == null) {
+            return Long.toUnsignedString(small, radix);
+        }
+        return UIntRadix.toString(bits, limbs(length), radix);
+    }
+
+    /**
+     * Returns the value of this UInt in hexadecimal, with no prefix and no leading zeros.
+     * Every digit is four bits sliced straight out of the limbs, so this takes linear time and no division.
+     *
+     * @return The hex digits, using lowercase letters.
+     */
+    public String toHexString() {
+        return toString(16);
+    }
+
+    /**
+     * Returns the value of this UInt in octal, with no prefix and no leading zeros.
+     * As with toHexString, each digit is sliced straight out of the limbs.
+     *
+     * @return The octal digits.
+     */
+    public String toOctalString() {
+        return toString(8);
+    }
+
+    /**
+     * Parses a decimal string into a UInt.
+     *
+     * @param s The digits.
+     * @return A new UInt holding the value.
+     * @throws NumberFormatException If s is empty or holds anything other than decimal digits.
+     */
+    public static UInt parse(CharSequence s) {
+        return parse(s, 10);
+    }
+
+    /**
+     * Parses a string of digits in the given radix into a UInt.
+     * In a radix that is a power of two, each digit's bits are written straight into the limbs in one linear pass.
+     * As with the constructors, the length is the bit length of the value plus one leading zero.
+     *
+     * @param s The digits, with no sign or prefix. Letters may be either case.
+     * @param radix The radix, from Character.MIN_RADIX to Character.MAX_RADIX.
+     * @return A new UInt holding the value.
+     * @throws NumberFormatException If the radix is out of range, or s is empty or holds anything other than digits.
+     */
+    public static UInt parse(CharSequence s, int radix) {
+        if (radix < Character.MIN_RADIX || radix > Character.MAX_RADIX) {
+            throw new NumberFormatException("Radix out of range: " + radix);
+        }
+        if (s.length() == 0) {
+            throw new NumberFormatException("Empty UInt string");
+        }
+        long[] limbs = UIntRadix.parse(s, radix);
+        int n = limbs.length;
+        if (n <= 1) {
+            return new UInt(n == 0 ? 0L : limbs[0]);
+        }
+        int len = 64 * n - Long.numberOfLeadingZeros(limbs[n - 1]) + 1;
+        return new UInt(n < limbs(len) ? Arrays.copyOf(limbs, limbs(len)) : limbs, len);
+    }
+
     /**
      * Performs a logical AND operation using this.bits and u.bits, with the result stored in this.bits.
      *
      * @param u The UInt to AND this against.
      */
     public void and(UInt u) {
-        // We want to traverse the bits arrays to perform our AND operation.
-        // But keep in mind that the arrays may not be the same length.
-        // So first we use Math.min to determine which is shorter.
-        // Then we need to align the two arrays at the 1s place, which we accomplish by indexing them at length-i-1.
-        for (int i = 0; i < Math.min(this.length, u.length); i++) {
-            this.bits[this.length - i - 1] =
-                    this.bits[this.length - i - 1] &
-                            u.bits[u.length - i - 1];
-        }
-        // In the specific case that this.length is greater, there are additional elements of
+        checkMutable();
+        if (bits == null) {
+            small &= u.low();
+            return;
+        }
+        // Limb 0 always holds the 1s place, so the two arrays are already aligned and we can AND
+        //   them together 64 bits at a time.
+        int n = limbs(this.length);
+        int m = limbs(u.length);
+        UIntLimbs.and(this.bits, 0, this.bits, 0, u.limbs(), 0, Math.min(n, m));
+        // In the specific case that this.length is greater, there are additional limbs of
         //   this.bits that are not getting ANDed against anything.
-        // Depending on the implementation, we may want to treat the operation as implicitly padding
-        //   the u.bits array to match the length of this.bits, in which case what we actually
-        //   perform is simply setting the remaining indices of this.bits to false.
-        // Note that while this logic is helpful for the AND operation if we want to use this
-        //   implementation (implicit padding), it is never necessary for the OR and XOR operations.
-        if (this.length > u.length) {
-            for (int i = u.length; i < this.length; i++) {
-                this.bits[this.length - i - 1] = false;
-            }
+        // We treat the operation as implicitly padding u.bits with zeros to match the length of this.bits,
+        //   so the remaining limbs of this.bits are simply cleared.
+        if (n > m) {
+            Arrays.fill(this.bits, m, n, 0L);
         }
     }
 
@@ -164,69 +410,778 @@ public class UInt {
         return temp;
     }
 
+    /**
+     * Performs a logical OR operation using this.bits and u.bits, with the result stored in this.bits.
+     * The result keeps this.length, so any bits of u above that length are dropped.
+     *
+     * @param u The UInt to OR this against.
+     */
     public void or(UInt u) {
-        // TODO Complete the bitwise logical OR method
-        return;
+        checkMutable();
+        if (bits == null) {
+            small = truncate(small | u.low(), length);
+            return;
+        }
+        // Limbs of u beyond this.bits have nothing to OR against, and the implicit zero padding of u
+        //   leaves the remaining limbs of this.bits unchanged, so only the shared limbs are visited.
+        int n = Math.min(limbs(this.length), limbs(u.length));
+        UIntLimbs.or(this.bits, 0, this.bits, 0, u.limbs(), 0, n);
+        clearHighBits();
     }
 
+    /**
+     * Accepts a pair of UInt objects and uses a temporary clone to safely OR them together (without changing either).
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @return The temp object containing the result of the OR op.
+     */
     public static UInt or(UInt a, UInt b) {
-        // TODO Complete the static OR method
-        return null;
+        UInt temp = a.clone();
+        temp.or(b);
+        return temp;
     }
 
+    /**
+     * Performs a logical XOR operation using this.bits and u.bits, with the result stored in this.bits.
+     * The result keeps this.length, so any bits of u above that length are dropped.
+     *
+     * @param u The UInt to XOR this against.
+     */
     public void xor(UInt u) {
-        // TODO Complete the bitwise logical XOR method
-        return;
+        checkMutable();
+        if (bits == null) {
+            small = truncate(small ^ u.low(), length);
+            return;
+        }
+        // As with OR, XOR against the implicit zero padding leaves a bit unchanged.
+        int n = Math.min(limbs(this.length), limbs(u.length));
+        UIntLimbs.xor(this.bits, 0, this.bits, 0, u.limbs(), 0, n);
+        clearHighBits();
     }
 
+    /**
+     * Accepts a pair of UInt objects and uses a temporary clone to safely XOR them together (without changing either).
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @return The temp object containing the result of the XOR op.
+     */
     public static UInt xor(UInt a, UInt b) {
-        // TODO Complete the static XOR method
-        return null;
+        UInt temp = a.clone();
+        temp.xor(b);
+        return temp;
+    }
+
+    /**
+     * Clears every bit of this UInt that is set in u (this AND NOT u), with the result stored in this.bits.
+     * The result keeps this.length. Bits of this above u.length are kept, since u is implicitly padded with zeros.
+     *
+     * @param u The UInt whose set bits are cleared from this.
+     */
+    public void andNot(UInt u) {
+        checkMutable();
+        if (bits == null) {
+            small &= ~u.low();
+            return;
+        }
+        int n = Math.min(limbs(this.length), limbs(u.length));
+        UIntLimbs.andNot(this.bits, 0, this.bits, 0, u.limbs(), 0, n);
+    }
+
+    /**
+     * Accepts a pair of UInt objects and uses a temporary clone to safely compute a AND NOT b (without changing either).
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @return The temp object containing the result of the AND NOT op.
+     */
+    public static UInt andNot(UInt a, UInt b) {
+        UInt temp = a.clone();
+        temp.andNot(b);
+        return temp;
+    }
+
+    /**
+     * Flips every bit of this UInt within its length (the 1's complement), with the result stored in this.bits.
+     */
+    public void not() {
+        checkMutable();
+        if (bits == null) {
+            small = truncate(~small, length);
+            return;
+        }
+        int n = limbs(this.length);
+        UIntLimbs.not(this.bits, 0, this.bits, 0, n);
+        clearHighBits();
+    }
+
+    /**
+     * Accepts a UInt object and uses a temporary clone to safely flip all of its bits (without changing it).
+     *
+     * @param u The UInt to complement.
+     * @return The temp object containing the 1's complement of u.
+     */
+    public static UInt not(UInt u) {
+        UInt temp = u.clone();
+        temp.not();
+        return temp;
     }
 
+    /**
+     * Adds u to this UInt using the default UIntAdder, which works a whole limb at a time, with the result stored in this.bits.
+     * The result is as long as the longer operand, and grows by a single bit only when the final carry-out is set.
+     * The existing limb array is reused whenever its capacity is large enough.
+     *
+     * @param u The UInt to add to this.
+     */
     public void add(UInt u) {
-        // TODO Using a ripple-carry adder, perform addition using a passed UINT object
-        // The result will be stored in this.bits
-        // You will likely need to create a couple of helper methods for this.
-        // Note this one, like the bitwise ops, also needs to be aligned on the 1s place.
-        // Also note this may require increasing the length of this.bits to contain the result.
-        return;
+        add(this, u, this);
     }
 
+    /**
+     * Accepts a pair of UInt objects and adds them together into a new UInt (without changing either).
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @return The new object containing the sum.
+     */
     public static UInt add(UInt a, UInt b) {
-        // TODO A static change-safe version of add, should return a temp UInt object like the bitwise ops.
-        return null;
+        if (a.length <= 64 && b.length <= 64) {
+            return add(a, b, new UInt());
+        }
+        // Room for the carry-out is set aside up front, so the sum never has to grow its array.
+        return add(a, b, new UInt(new long[limbs(Math.max(a.length, b.length) + 1)], 0));
     }
 
+    /**
+     * Adds a pair of UInt objects, storing the sum in dest.
+     * dest may be a or b, and its limb array is only replaced when its capacity is too small for the sum.
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @param dest The UInt receiving the sum.
+     * @return dest, for chaining.
+     */
+    public static UInt add(UInt a, UInt b, UInt dest) {
+        return add(a, b, dest, UIntAdder.DEFAULT);
+    }
+
+    /**
+     * Adds a pair of UInt objects, storing the sum in dest, with the carries across the limbs resolved by the given adder.
+     * Every adder gives the same sum; they differ only in how long the carry chain is and how much of it can run in parallel.
+     * Operands of 64 bits or less are a single add whichever adder is named.
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @param dest The UInt receiving the sum.
+     * @param adder The adder design to use.
+     * @return dest, for chaining.
+     */
+    public static UInt add(UInt a, UInt b, UInt dest, UIntAdder adder) {
+        dest.checkMutable();
+        if (a.length <= 64 && b.length <= 64) {
+            // Both operands fit in one limb, so the sum is a single add with the carry read off the top.
+            long x = a.low();
+            long sum = x + b.low();
+            int len = Math.max(a.length, b.length);
+            if (len == 64) {
+                if (Long.compareUnsigned(sum, x) < 0) {
+                    dest.setWide(sum, 1L, 65);
+                    return dest;
+                }
+            } else if ((sum >>> len & 1L) != 0) {
+                len++;
+            }
+            dest.setSmall(sum, len);
+            return dest;
+        }
+        UInt x = a.length >= b.length ? a : b;
+        UInt y = x == a ? b : a;
+        int len = x.length;
+        int n = limbs(len);
+        int old = limbs(dest.length);
+        // Limb 0 is the 1s place for both operands, so the only alignment needed is making room for the longer one.
+        dest.reserve(n);
+        // Resolve the carries a whole limb at a time rather than bit by bit.
+        long carry = adder.add(dest.bits, 0, x.bits, 0, n, y.limbs(), 0, limbs(y.length));
+        // The carry-out of the top bit either landed in the unused part of the top limb,
+        //   or fell off the end of the run when the top limb was full.
+        if ((len & 63) == 0) {
+            if (carry != 0) {
+                dest.reserve(n + 1);
+                dest.bits[n] = 1L;
+                len++;
+            }
+        } else if ((dest.bits[n - 1] >>> len & 1L) != 0) {
+            len++;
+        }
+        dest.length = len;
+        // Anything dest held above the sum is stale, and is cleared to keep the unused limbs at 0.
+        dest.clearLimbs(limbs(len), old);
+        return dest;
+    }
+
+    /**
+     * Performs 2's complement negation of this UInt within its current length.
+     * The bits are inverted and then 1 is added, letting the carry ripple through the limbs.
+     */
     public void negate() {
-        // TODO You'll need a way to perform 2's complement negation
-        // The add() method will be helpful with this.
+        checkMutable();
+        if (bits == null) {
+            small = truncate(-small, length);
+            return;
+        }
+        int n = limbs(this.length);
+        UIntLimbs.not(this.bits, 0, this.bits, 0, n);
+        UIntLimbs.increment(this.bits, 0, this.bits, 0, n, 1L);
+        // Inverting the limbs also set the unused bits above length, so those are cleared again.
+        clearHighBits();
     }
 
+    /**
+     * Subtracts u from this UInt in place, keeping this.length.
+     * As this class is supposed to handle only unsigned values,
+     *   if the result of the subtraction would be a negative number then it is coerced to 0.
+     *
+     * @param u The UInt to subtract from this.
+     */
     public void sub(UInt u) {
-        // TODO Using negate() and add(), perform in-place subtraction
-        // As this class is supposed to handle only unsigned values,
-        //   if the result of the subtraction operation would be a negative number then it should be coerced to 0.
-        return;
+        sub(this, u, this);
     }
 
+    /**
+     * Accepts a pair of UInt objects and subtracts b from a into a new UInt (without changing either).
+     *
+     * @param a The UInt to subtract from.
+     * @param b The UInt to subtract.
+     * @return The new object containing the difference, or 0 if b is greater than a.
+     */
     public static UInt sub(UInt a, UInt b) {
-        // TODO And a static change-safe version of sub
-        return null;
+        return sub(a, b, a.length <= 64 ? new UInt() : new UInt(new long[limbs(a.length)], 0));
+    }
+
+    /**
+     * Subtracts b from a, storing the difference in dest with the length of a.
+     * dest may be a or b, and its limb array is only replaced when its capacity is too small for the difference.
+     *
+     * @param a The UInt to subtract from.
+     * @param b The UInt to subtract.
+     * @param dest The UInt receiving the difference, or 0 if b is greater than a.
+     * @return dest, for chaining.
+     */
+    public static UInt sub(UInt a, UInt b, UInt dest) {
+        dest.checkMutable();
+        if (a.length <= 64) {
+            // b is larger than a if it has any significant limb past the first one.
+            long x = a.low();
+            long y = b.low();
+            boolean negative = b.length > 64 && UIntLimbs.significant(b.bits, 0, limbs(b.length)) > 1;
+            dest.setSmall(negative || Long.compareUnsigned(x, y) < 0 ? 0L : x - y, a.length);
+            return dest;
+        }
+        int n = limbs(a.length);
+        int m = limbs(b.length);
+        int old = limbs(dest.length);
+        long[] bb = b.limbs();
+        dest.reserve(n);
+        if (UIntLimbs.compare(a.bits, 0, n, bb, 0, m) < 0) {
+            Arrays.fill(dest.bits, 0, n, 0L);
+        } else {
+            // Adding the 2's complement of b is the same as subtracting it with a borrow chain,
+            //   which lets us skip building the negated copy. Since b is no larger than a,
+            //   any limbs of b beyond a.bits must be zero.
+            UIntLimbs.sub(dest.bits, 0, a.bits, 0, n, bb, 0, Math.min(n, m));
+        }
+        dest.length = a.length;
+        dest.clearLimbs(n, old);
+        return dest;
     }
 
+    /**
+     * Multiplies this UInt by u, with the result stored in this.bits.
+     * Like Booth's algorithm, the length of the result is the sum of the two lengths (X+Y), which always fits the product.
+     * Small operands use a word-level schoolbook multiply, and larger ones switch to Karatsuba
+     *   (see UIntMultiplier for the crossover and the uint.karatsubaThreshold system property).
+     *
+     * @param u The UInt to multiply this by.
+     */
     public void mul(UInt u) {
-        // TODO Using Booth's algorithm, perform multiplication
-        // This one will require that you increase the length of bits, up to a maximum of X+Y.
-        // Having negate() and add() will obviously be useful here.
-        // Also note the Booth's always treats binary values as if they are signed,
-        //   while this class is only intended to use unsigned values.
-        // This means that you may need to pad your bits array with a leading 0 if it's not already long enough.
-        return;
+        mul(this, u, this);
     }
 
+    /**
+     * Accepts a pair of UInt objects and multiplies them together into a new UInt (without changing either).
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @return The new object containing the product.
+     */
     public static UInt mul(UInt a, UInt b) {
-        // TODO A static, change-safe version of mul
-        return null;
+        return mul(a, b, new UInt());
+    }
+
+    /**
+     * Multiplies a pair of UInt objects, storing the product in dest with length X+Y.
+     * dest may be a or b. The product cannot be written over an operand it is still reading, so when dest is
+     *   an operand that operand is first moved into the spare capacity above the product.
+     *   The limb array is only replaced when its capacity is too small for that.
+     *
+     * @param a The first UInt
+     * @param b The second UInt
+     * @param dest The UInt receiving the product.
+     * @return dest, for chaining.
+     */
+    public static UInt mul(UInt a, UInt b, UInt dest) {
+        dest.checkMutable();
+        // Multiplying a UInt by itself skips the duplicated partial products.
+        if (a == b) {
+            return square(a, dest);
+        }
+        if (a.length <= 64 && b.length <= 64) {
+            // Both operands fit in one limb, so the product is one 64-by-64-bit multiply.
+            long x = a.low();
+            long y = b.low();
+            int len = a.length + b.length;
+            if (len <= 64) {
+                dest.setSmall(x * y, len);
+            } else {
+                dest.setWide(x * y, UIntLimbs.mulHigh(x, y), len);
+            }
+            return dest;
+        }
+        // Leading zero limbs contribute nothing to the product, so only the significant limbs are multiplied.
+        long[] ab = a.limbs();
+        long[] bb = b.limbs();
+        int n = UIntLimbs.significant(ab, 0, limbs(a.length));
+        int m = UIntLimbs.significant(bb, 0, limbs(b.length));
+        int len = a.length + b.length;
+        int size = Math.max(limbs(len), n + m);
+        int old = limbs(dest.length);
+        if (dest == a || dest == b) {
+            int k = dest == a ? n : m;
+            dest.reserve(size + k);
+            System.arraycopy(dest.bits, 0, dest.bits, size, k);
+            if (dest == a) {
+                UIntMultiplier.mul(dest.bits, 0, dest.bits, size, n, bb, 0, m);
+            } else {
+                UIntMultiplier.mul(dest.bits, 0, ab, 0, n, dest.bits, size, m);
+            }
+            old = Math.max(old, size + k);
+        } else {
+            dest.reserve(size);
+            UIntMultiplier.mul(dest.bits, 0, ab, 0, n, bb, 0, m);
+        }
+        dest.length = len;
+        dest.clearLimbs(n + m, old);
+        return dest;
+    }
+
+    /**
+     * Squares this UInt, with the result stored in this.bits.
+     * As with mul, the length of the result doubles. Each cross product of two different limbs is only
+     *   computed once, which saves nearly half the work of a general multiply at every size.
+     */
+    public void square() {
+        square(this, this);
+    }
+
+    /**
+     * Accepts a UInt object and squares it into a new UInt (without changing it).
+     *
+     * @param u The UInt to square.
+     * @return The new object containing the square.
+     */
+    public static UInt square(UInt u) {
+        return square(u, new UInt());
+    }
+
+    /**
+     * Squares a UInt object, storing the result in dest with twice its length.
+     * dest may be u, in which case u is first moved into the spare capacity above the square, as in mul.
+     *
+     * @param u The UInt to square.
+     * @param dest The UInt receiving the square.
+     * @return dest, for chaining.
+     */
+    public static UInt square(UInt u, UInt dest) {
+        dest.checkMutable();
+        if (u.length <= 64) {
+            long x = u.low();
+            if (u.length <= 32) {
+                dest.setSmall(x * x, 2 * u.length);
+            } else {
+                dest.setWide(x * x, UIntLimbs.mulHigh(x, x), 2 * u.length);
+            }
+            return dest;
+        }
+        int n = UIntLimbs.significant(u.bits, 0, limbs(u.length));
+        int len = 2 * u.length;
+        int size = Math.max(limbs(len), 2 * n);
+        int old = limbs(dest.length);
+        if (dest == u) {
+            dest.reserve(size + n);
+            System.arraycopy(dest.bits, 0, dest.bits, size, n);
+            UIntMultiplier.square(dest.bits, 0, dest.bits, size, n);
+            old = Math.max(old, size + n);
+        } else {
+            dest.reserve(size);
+            UIntMultiplier.square(dest.bits, 0, u.bits, 0, n);
+        }
+        dest.length = len;
+        dest.clearLimbs(2 * n, old);
+        return dest;
+    }
+
+    /**
+     * Divides this UInt by u, with the quotient stored in this.bits.
+     * The quotient is never larger than this, so this.length is kept.
+     * Small divisors use Knuth's Algorithm D on whole limbs, and large ones the recursive
+     *   Burnikel-Ziegler algorithm (see UIntDivider for the crossover).
+     *
+     * @param u The UInt to divide this by.
+     * @throws ArithmeticException If u is 0.
+     */
+    public void div(UInt u) {
+        checkMutable();
+        divRem(u, true);
+    }
+
+    /**
+     * Accepts a pair of UInt objects and uses a temporary clone to safely divide a by b (without changing either).
+     *
+     * @param a The dividend.
+     * @param b The divisor.
+     * @return The temp object containing the quotient.
+     * @throws ArithmeticException If b is 0.
+     */
+    public static UInt div(UInt a, UInt b) {
+        UInt temp = a.clone();
+        temp.div(b);
+        return temp;
+    }
+
+    /**
+     * Replaces this UInt with the remainder of dividing it by u.
+     * The remainder is smaller than both operands, so its length is the shorter of the two lengths.
+     *
+     * @param u The UInt to divide this by.
+     * @throws ArithmeticException If u is 0.
+     */
+    public void rem(UInt u) {
+        checkMutable();
+        set(divRem(u, false));
+    }
+
+    /**
+     * Accepts a pair of UInt objects and uses a temporary clone to safely find the remainder of a divided by b
+     *   (without changing either).
+     *
+     * @param a The dividend.
+     * @param b The divisor.
+     * @return The temp object containing the remainder.
+     * @throws ArithmeticException If b is 0.
+     */
+    public static UInt rem(UInt a, UInt b) {
+        UInt temp = a.clone();
+        temp.rem(b);
+        return temp;
+    }
+
+    /**
+     * Replaces this UInt with its remainder modulo the modulus of a Barrett context.
+     * Values below the square of the modulus are reduced with two multiplications instead of a long division,
+     *   which pays off whenever many values are reduced against the same modulus (see UIntBarrett).
+     * As with rem(UInt), the length of the result is the shorter of the two lengths.
+     *
+     * @param modulus The Barrett context for the modulus.
+     */
+    public void rem(UIntBarrett modulus) {
+        checkMutable();
+        set(modulus.reduce(this));
+    }
+
+    /**
+     * Accepts a UInt object and a Barrett context and safely finds the remainder of a modulo the context's modulus
+     *   (without changing a).
+     *
+     * @param a The dividend.
+     * @param modulus The Barrett context for the modulus.
+     * @return A new UInt holding the remainder.
+     */
+    public static UInt rem(UInt a, UIntBarrett modulus) {
+        return modulus.reduce(a);
+    }
+
+    /**
+     * Divides this UInt by u, storing the quotient in this.bits and returning the remainder,
+     *   so both come out of a single division.
+     *
+     * @param u The UInt to divide this by.
+     * @return A new UInt holding the remainder, with the shorter of the two lengths.
+     * @throws ArithmeticException If u is 0.
+     */
+    public UInt divRem(UInt u) {
+        checkMutable();
+        return divRem(u, true);
+    }
+
+    /**
+     * Accepts a pair of UInt objects and safely divides a by b (without changing either).
+     *
+     * @param a The dividend.
+     * @param b The divisor.
+     * @return A two-element array holding the quotient followed by the remainder.
+     * @throws ArithmeticException If b is 0.
+     */
+    public static UInt[] divRem(UInt a, UInt b) {
+        UInt q = a.clone();
+        UInt r = q.divRem(b);
+        return new UInt[]{q, r};
+    }
+
+    /**
+     * Replaces this UInt with this^exponent mod modulus.
+     * The exponent is scanned with a sliding window over a table of odd powers, and the result takes the
+     *   length of the modulus. Odd moduli use Montgomery multiplication and even ones Barrett reduction,
+     *   so no product needs a division (see UIntModPow, UIntMontgomery and UIntBarrett).
+     *
+     * @param exponent The exponent.
+     * @param modulus The modulus.
+     * @throws ArithmeticException If modulus is 0.
+     */
+    public void modPow(UInt exponent, UInt modulus) {
+        checkMutable();
+        set(UIntModPow.modPow(this, exponent, modulus));
+    }
+
+    /**
+     * Accepts three UInt objects and safely computes base^exponent mod modulus (without changing any of them).
+     *
+     * @param base The base.
+     * @param exponent The exponent.
+     * @param modulus The modulus.
+     * @return A new UInt holding the result.
+     * @throws ArithmeticException If modulus is 0.
+     */
+    public static UInt modPow(UInt base, UInt exponent, UInt modulus) {
+        return UIntModPow.modPow(base, exponent, modulus);
+    }
+
+    /**
+     * Runs one division of this by u, optionally storing the quotient in this.bits.
+     *
+     * @param u The divisor.
+     * @param keepQuotient Whether to replace this.bits with the quotient.
+     * @return A new UInt holding the remainder.
+     */
+    private UInt divRem(UInt u, boolean keepQuotient) {
+        if (this.length <= 64 && u.length <= 64) {
+            // Both operands fit in one limb, so the hardware divide does the whole job.
+            long x = low();
+            long y = u.low();
+            if (y == 0) {
+                throw new ArithmeticException("UInt divide by zero");
+            }
+            UInt r = new UInt();
+            r.small = Long.remainderUnsigned(x, y);
+            r.length = Math.min(this.length, u.length);
+            if (keepQuotient) {
+                setSmall(Long.divideUnsigned(x, y), this.length);
+            }
+            return r;
+        }
+        int n = limbs(this.length);
+        int m = limbs(u.length);
+        long[] q = keepQuotient ? new long[Math.max(n, 1)] : null;
+        long[] r = new long[Math.max(m, 1)];
+        UIntDivider.divRem(q, 0, r, 0, this.limbs(), 0, n, u.limbs(), 0, m);
+        if (keepQuotient) {
+            this.bits = q;
+        }
+        return new UInt(r, Math.min(this.length, u.length));
+    }
+
+    /**
+     * Returns the number of bits this UInt can hold without replacing its limb array.
+     * The capacity is kept separately from the length, so values that shrink and grow again reuse the same storage.
+     *
+     * @return The capacity in bits.
+     */
+    public int capacity() {
+        return bits == null ? 64 : 64 * bits.length;
+    }
+
+    /**
+     * Grows the limb array, if needed, so that this UInt can hold at least the given number of bits
+     *   without any further allocation. The value and length are unchanged.
+     *
+     * @param bitLength The number of bits to make room for.
+     */
+    public void ensureCapacity(int bitLength) {
+        checkMutable();
+        if (bits == null) {
+            if (bitLength > 64) {
+                bits = new long[limbs(bitLength)];
+                bits[0] = small;
+            }
+        } else if (bits.length < limbs(bitLength)) {
+            bits = Arrays.copyOf(bits, limbs(bitLength));
+        }
+    }
+
+    /**
+     * Makes sure the limb array holds at least n limbs, keeping its contents.
+     * Arrays that have to grow are given half again their old size, so a value that keeps growing,
+     *   such as an accumulator, only reallocates a logarithmic number of times.
+     *
+     * @param n The number of limbs needed.
+     */
+    private void reserve(int n) {
+        if (bits == null) {
+            // An inline value moves into the low limb of its new array.
+            bits = new long[Math.max(n, 1)];
+            bits[0] = small;
+        } else if (bits.length < n) {
+            bits = Arrays.copyOf(bits, Math.max(n, bits.length + (bits.length >> 1)));
+        }
+    }
+
+    /**
+     * Stores a value of at most 64 bits, inline if this UInt has no limb array and in the low limb if it does,
+     *   so an array set aside for capacity is kept.
+     *
+     * @param value The value, with no bits set above len.
+     * @param len The new length, at most 64.
+     */
+    private void setSmall(long value, int len) {
+        if (bits == null) {
+            small = value;
+        } else {
+            int old = limbs(length);
+            reserve(1);
+            bits[0] = value;
+            clearLimbs(1, old);
+        }
+        length = len;
+    }
+
+    /**
+     * Stores a value of two limbs, moving an inline value into a limb array first.
+     *
+     * @param lo The low limb.
+     * @param hi The high limb.
+     * @param len The new length, from 65 to 128.
+     */
+    private void setWide(long lo, long hi, int len) {
+        int old = bits == null ? 0 : limbs(length);
+        reserve(2);
+        bits[0] = lo;
+        bits[1] = hi;
+        clearLimbs(2, old);
+        length = len;
+    }
+
+    /**
+     * Takes over the value of another UInt, in whichever form it is held.
+     *
+     * @param u The UInt whose value this takes. Its limb array, if any, is shared, not copied.
+     */
+    private void set(UInt u) {
+        this.bits = u.bits;
+        this.small = u.small;
+        this.length = u.length;
+    }
+
+    /**
+     * Called by every operation before it changes this UInt. Subclasses whose values are fixed, such as
+     *   ImmutableUInt, override it to throw.
+     */
+    void checkMutable() {
+    }
+
+    /**
+     * Returns the low 64 bits of the value.
+     *
+     * @return The lowest limb.
+     */
+    long low() {
+        if (bits == null) {
+            return small;
+        }
+        return bits.length == 0 ? 0L : bits[0];
+    }
+
+    /**
+     * Returns the limbs of the value. An inline value is returned as a new one-limb array,
+     *   so writes to the result only reach this UInt when it already has a limb array.
+     *
+     * @return The limb array.
+     */
+    long[] limbs() {
+        return bits != null ? bits : new long[]{small};
+    }
+
+    /**
+     * Moves an inline value into a limb array, so that code outside this class can share the array.
+     */
+    void inflate() {
+        reserve(1);
+    }
+
+    /**
+     * Clears limbs from..to of the limb array, which held part of an earlier value and now lie above the length.
+     *
+     * @param from The first stale limb.
+     * @param to The limb after the last stale limb.
+     */
+    private void clearLimbs(int from, int to) {
+        if (from < to) {
+            Arrays.fill(bits, from, to, 0L);
+        }
+    }
+
+    /**
+     * Returns the number of 64-bit limbs needed to hold the given number of bits.
+     *
+     * @param bitLength The number of bits.
+     * @return The number of limbs.
+     */
+    static int limbs(int bitLength) {
+        // A signed shift keeps a negative length negative, so a bad length still fails at the array allocation.
+        return (bitLength + 63) >> 6;
+    }
+
+    /**
+     * Returns a mask selecting the bits of the top limb that fall inside a representation of the given length.
+     *
+     * @param bitLength The number of bits, which must be positive.
+     * @return The mask for the most-significant limb.
+     */
+    static long mask(int bitLength) {
+        return -1L >>> (-bitLength & 63);
+    }
+
+    /**
+     * Clears every bit of a single-limb value at or above the given length.
+     *
+     * @param value The value.
+     * @param bitLength The number of bits to keep, from 0 to 64.
+     * @return The truncated value.
+     */
+    static long truncate(long value, int bitLength) {
+        return bitLength <= 0 ? 0L : value & mask(bitLength);
+    }
+
+    /**
+     * Clears any bits of the top limb that lie above this.length, restoring the invariant
+     *   that the unused bits of the limb array are always 0.
+     */
+    protected void clearHighBits() {
+        if (bits == null) {
+            small = truncate(small, length);
+        } else if (length > 0) {
+            bits[limbs(length) - 1] &= mask(length);
+        }
     }
 }
@@ -0,0 +1,240 @@
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * <h1>UIntAdder</h1>
+ * The adder designs UInt.add can run on, each working a whole 64-bit limb at a time.
+ * Every design is built on the same two facts about a limb position: it generates a carry when a + b overflows,
+ *   and it propagates an incoming carry when a + b is all ones. What differs is how the carries are resolved.
+ * RIPPLE_CARRY passes the carry from limb to limb, a chain as long as the operands. The others first pack the
+ *   generate and propagate bits of 64 limbs into one word each, resolve every carry from those words, and then
+ *   add the limbs independently of each other. Runs of uint.parallelAddLimbs limbs or more spread the independent
+ *   steps across the common ForkJoinPool.
+ * UInt.add uses the adder named by the uint.adder system property, RIPPLE_CARRY by default, and
+ *   UInt.add(a, b, dest, adder) picks one for a single call. AdderBenchmark compares them.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public enum UIntAdder {
+
+    /**
+     * Passes the carry from each limb to the next, in a single sequential loop.
+     */
+    RIPPLE_CARRY {
+        @Override
+        long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry) {
+            return UIntLimbs.addN(r, rOff, a, aOff, b, bOff, n, carry);
+        }
+    },
+
+    /**
+     * Looks ahead across groups of 64 limbs. Within a group, adding the packed words G and G | P (plus the carry in)
+     *   makes the hardware adder resolve all 64 carries at once, since a bit of G | P passes a carry on exactly
+     *   when the limb propagates. The carries between groups ripple, one step per 64 limbs.
+     */
+    CARRY_LOOKAHEAD {
+        @Override
+        long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry) {
+            int words = (n + 63) >>> 6;
+            long[] g = new long[words];
+            long[] p = new long[words];
+            boolean parallel = n >= PARALLEL_LIMBS;
+            generatePropagate(g, p, a, aOff, b, bOff, n, parallel);
+            // The carries into every limb of a group, found from the group's carry in with one word addition.
+            long[] k = new long[words];
+            for (int w = 0; w < words; w++) {
+                long x = g[w];
+                long y = x | p[w];
+                long s = x + y + carry;
+                k[w] = s ^ x ^ y;
+                int m = Math.min(64, n - 64 * w);
+                carry = m == 64 ? ((x & y) | ((x | y) & ~s)) >>> 63 : k[w] >>> m & 1L;
+            }
+            sum(r, rOff, a, aOff, b, bOff, n, k, parallel);
+            return carry;
+        }
+    },
+
+    /**
+     * Adds blocks of BLOCK_LIMBS limbs as if each had no carry in, then selects each block's real sum in order.
+     *   The sum with a carry in is the carry-free sum plus one, so the selection applies that increment rather
+     *   than keeping a second copy, and it stops at the first limb that is not all ones.
+     */
+    CARRY_SELECT {
+        @Override
+        long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry) {
+            int blocks = (n + BLOCK_LIMBS - 1) / BLOCK_LIMBS;
+            long[] carryOut = new long[blocks];
+            boolean[] allOnes = new boolean[blocks];
+            forEach(blocks, n >= PARALLEL_LIMBS, i -> {
+                int off = i * BLOCK_LIMBS;
+                int m = Math.min(BLOCK_LIMBS, n - off);
+                carryOut[i] = UIntLimbs.addN(r, rOff + off, a, aOff + off, b, bOff + off, m, 0L);
+                boolean ones = true;
+                for (int j = 0; j < m && ones; j++) {
+                    ones = r[rOff + off + j] == -1L;
+                }
+                allOnes[i] = ones;
+            });
+            for (int i = 0; i < blocks; i++) {
+                if (carry != 0) {
+                    int off = i * BLOCK_LIMBS;
+                    UIntLimbs.increment(r, rOff + off, r, rOff + off, Math.min(BLOCK_LIMBS, n - off), 1L);
+                }
+                carry = carryOut[i] | (allOnes[i] ? carry : 0L);
+            }
+            return carry;
+        }
+    },
+
+    /**
+     * Resolves every carry with the Kogge-Stone parallel prefix. After the step with distance d, each limb's generate
+     *   and propagate bits cover the 2d limbs ending at it, so log2(n) steps reach the bottom. Each step is a
+     *   shift and two logical operations over the packed words, with no dependency from one word to the next.
+     */
+    KOGGE_STONE {
+        @Override
+        long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry) {
+            int words = (n + 63) >>> 6;
+            long[] g = new long[words];
+            long[] p = new long[words];
+            boolean parallel = n >= PARALLEL_LIMBS;
+            generatePropagate(g, p, a, aOff, b, bOff, n, parallel);
+            // The carry in acts as a generate bit just below limb 0, so it is folded into limb 0.
+            g[0] |= p[0] & carry;
+            long[] g2 = new long[words];
+            long[] p2 = new long[words];
+            for (int d = 1; d < n; d <<= 1) {
+                long[] gIn = g;
+                long[] pIn = p;
+                long[] gOut = g2;
+                long[] pOut = p2;
+                int dist = d;
+                forEach(words, parallel && words >= 64, w -> {
+                    gOut[w] = gIn[w] | (pIn[w] & shifted(gIn, w, dist));
+                    pOut[w] = pIn[w] & shifted(pIn, w, dist);
+                });
+                g2 = g;
+                p2 = p;
+                g = gOut;
+                p = pOut;
+            }
+            int top = n - 1;
+            long carryOut = g[top >>> 6] >>> top & 1L;
+            // Limb i takes the prefix carry out of limb i - 1, and limb 0 takes the original carry in.
+            long[] gFinal = g;
+            long[] k = new long[words];
+            long in = carry;
+            forEach(words, parallel, w -> k[w] = gFinal[w] << 1 | (w == 0 ? in : gFinal[w - 1] >>> 63));
+            sum(r, rOff, a, aOff, b, bOff, n, k, parallel);
+            return carryOut;
+        }
+    };
+
+    // Runs of at least this many limbs split the independent steps of the lookahead adders across cores.
+    static final int PARALLEL_LIMBS = Math.max(1024, Integer.getInteger("uint.parallelAddLimbs", 1 << 16));
+
+    // The block size of CARRY_SELECT, in limbs.
+    static final int BLOCK_LIMBS = 256;
+
+    // The adder used by UInt.add, from the uint.adder system property.
+    static final UIntAdder DEFAULT = fromProperty();
+
+    /**
+     * Adds two equal-length runs of limbs with an incoming carry, storing the sum in r.
+     * The result may overlap either operand as long as it starts at the same offset.
+     *
+     * @return The carry out of the most-significant limb, 0 or 1.
+     */
+    abstract long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry);
+
+    /**
+     * Adds a run of bLen limbs into a run of aLen limbs, storing the aLen-limb sum in r, as UIntLimbs.add does.
+     *
+     * @return The carry out of the most-significant limb, 0 or 1.
+     */
+    long add(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        long carry = addN(r, rOff, a, aOff, b, bOff, bLen, 0L);
+        return UIntLimbs.increment(r, rOff + bLen, a, aOff + bLen, aLen - bLen, carry);
+    }
+
+    /**
+     * Packs the generate bit (a + b overflows) and the propagate bit (a + b is all ones) of each limb into g and p,
+     *   64 limbs to a word.
+     */
+    private static void generatePropagate(long[] g, long[] p, long[] a, int aOff, long[] b, int bOff, int n,
+                                          boolean parallel) {
+        forEach(g.length, parallel, w -> {
+            long gw = 0;
+            long pw = 0;
+            int base = 64 * w;
+            int m = Math.min(64, n - base);
+            for (int j = 0; j < m; j++) {
+                long x = a[aOff + base + j];
+                long y = b[bOff + base + j];
+                long s = x + y;
+                gw |= (((x & y) | ((x | y) & ~s)) >>> 63) << j;
+                pw |= (s == -1L ? 1L : 0L) << j;
+            }
+            g[w] = gw;
+            p[w] = pw;
+        });
+    }
+
+    /**
+     * Adds every limb with its resolved carry in, taken from bit i of the packed words k.
+     * No limb depends on another, so the words can be handled in any order.
+     */
+    private static void sum(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long[] k,
+                            boolean parallel) {
+        forEach(k.length, parallel, w -> {
+            int base = 64 * w;
+            int m = Math.min(64, n - base);
+            long kw = k[w];
+            for (int j = 0; j < m; j++) {
+                r[rOff + base + j] = a[aOff + base + j] + b[bOff + base + j] + (kw >>> j & 1L);
+            }
+        });
+    }
+
+    /**
+     * Returns word w of the packed bit vector v shifted up by d bits, with zeros shifted in at the bottom.
+     */
+    private static long shifted(long[] v, int w, int d) {
+        int from = w - (d >>> 6);
+        int s = d & 63;
+        if (from < 0) {
+            return 0L;
+        }
+        long x = v[from] << s;
+        if (s != 0 && from > 0) {
+            x |= v[from - 1] >>> (64 - s);
+        }
+        return x;
+    }
+
+    /**
+     * Runs body for 0..count-1, on the common ForkJoinPool when parallel is set.
+     */
+    private static void forEach(int count, boolean parallel, IntConsumer body) {
+        if (parallel) {
+            IntStream.range(0, count).parallel().forEach(body);
+        } else {
+            for (int i = 0; i < count; i++) {
+                body.accept(i);
+            }
+        }
+    }
+
+    /**
+     * Reads the default adder from the uint.adder system property, falling back to RIPPLE_CARRY.
+     */
+    private static UIntAdder fromProperty() {
+        try {
+            return valueOf(System.getProperty("uint.adder", RIPPLE_CARRY.name()));
+        } catch (IllegalArgumentException ex) {
+            return RIPPLE_CARRY;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+/**
+ * <h1>UIntBarrett</h1>
+ * A reusable context for reducing values modulo a fixed modulus m, using Barrett's method.
+ * For an n-limb modulus, the reciprocal mu = floor(4^k / m) with k = 64n is computed once. The quotient of any
+ *   x below 4^k (which covers every x below m^2) can then be estimated from the top limbs of x and mu with one
+ *   multiplication, and the remainder recovered with a second one. The estimate is never more than two too small,
+ *   so at most two subtractions of m finish the reduction, and no long division is needed after the context is built.
+ * Unlike UIntMontgomery, the modulus may be even and values stay in their ordinary form.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public class UIntBarrett {
+
+    // The limbs of the modulus, and how many of them there are.
+    private final long[] m;
+    private final int n;
+
+    // The bit length given to every UInt this context returns (the length of the modulus UInt).
+    private final int length;
+
+    // floor(2^(128n) / m), which takes n + 1 limbs except when m is a power of 2^64.
+    private final long[] mu;
+    private final int muLen;
+
+    /**
+     * Constructs a Barrett context for the given modulus.
+     *
+     * @param modulus The modulus.
+     * @throws ArithmeticException If the modulus is 0.
+     */
+    public UIntBarrett(UInt modulus) {
+        long[] mb = modulus.limbs();
+        this.n = UIntLimbs.significant(mb, 0, UInt.limbs(modulus.length));
+        if (n == 0) {
+            throw new ArithmeticException("UInt divide by zero");
+        }
+        this.m = Arrays.copyOf(mb, n);
+        this.length = modulus.length;
+
+        // The reciprocal is the one place a division is needed, and it only happens here.
+        long[] power = new long[2 * n + 1];
+        power[2 * n] = 1L;
+        long[] q = new long[n + 2];
+        UIntDivider.divRem(q, 0, null, 0, power, 0, 2 * n + 1, m, 0, n);
+        this.muLen = UIntLimbs.significant(q, 0, n + 2);
+        this.mu = Arrays.copyOf(q, muLen);
+    }
+
+    /**
+     * Returns a copy of the modulus of this context.
+     *
+     * @return The modulus.
+     */
+    public UInt modulus() {
+        return result(Arrays.copyOf(m, n), length);
+    }
+
+    /**
+     * Reduces a value modulo m.
+     * Values of up to 2n limbs, which includes everything below m^2, take the Barrett path.
+     * Anything larger falls back to a long division.
+     *
+     * @param x The value to reduce.
+     * @return A new UInt holding x mod m, with the shorter of the two lengths (as with UInt.rem).
+     */
+    public UInt reduce(UInt x) {
+        return result(reduced(x), Math.min(x.length, length));
+    }
+
+    /**
+     * Multiplies two values modulo m. Values that are not already below the modulus are reduced first.
+     *
+     * @param a The first value.
+     * @param b The second value.
+     * @return A new UInt holding ab mod m, with the length of the modulus.
+     */
+    public UInt mulMod(UInt a, UInt b) {
+        long[] r = new long[n];
+        mulMod(r, reduced(a), reduced(b), new long[scratchSize()]);
+        return result(r, length);
+    }
+
+    /**
+     * Returns the number of limbs in the modulus, which is the size of every reduced value.
+     */
+    int limbCount() {
+        return n;
+    }
+
+    /**
+     * Returns the number of scratch limbs needed by reduce and mulMod.
+     */
+    int scratchSize() {
+        // The product (2n), then q1 * mu (n + 1 + muLen), then q3 * m (2n + 1).
+        return 2 * n + (n + 1 + muLen) + (2 * n + 1);
+    }
+
+    /**
+     * Multiplies two reduced n-limb values into r, using t (scratchSize() limbs) as scratch.
+     * r may be the same array as a or b.
+     */
+    void mulMod(long[] r, long[] a, long[] b, long[] t) {
+        UIntMultiplier.mul(t, 0, a, 0, n, b, 0, n);
+        reduce(r, t, t);
+    }
+
+    /**
+     * Barrett reduction (HAC 14.42): given x < 4^k in the low 2n limbs of x, stores x mod m in r.
+     * The scratch array t needs scratchSize() limbs, and may be x itself as long as x starts at offset 0.
+     */
+    void reduce(long[] r, long[] x, long[] t) {
+        // q1 = floor(x / b^(n - 1)) and q2 = q1 * mu, placed after the 2n limbs that x may occupy in t.
+        int q2 = 2 * n;
+        UIntMultiplier.mul(t, q2, x, n - 1, n + 1, mu, 0, muLen);
+        // q3 = floor(q2 / b^(n + 1)) is at most x / m, which is below b^(n + 1) since m >= b^(n - 1).
+        int q3 = q2 + n + 1;
+        // The remainder only matters modulo b^(n + 1), so only the low n + 1 limbs of q3 * m are used.
+        int p = q2 + n + 1 + muLen;
+        UIntMultiplier.mul(t, p, t, q3, n + 1, m, 0, n);
+        UIntLimbs.subN(t, p, x, 0, t, p, n + 1, 0L);
+        // The quotient estimate is at most two too small.
+        while (UIntLimbs.compare(t, p, n + 1, m, 0, n) >= 0) {
+            UIntLimbs.sub(t, p, t, p, n + 1, m, 0, n);
+        }
+        System.arraycopy(t, p, r, 0, n);
+    }
+
+    /**
+     * Returns the limbs of x reduced below the modulus, padded or trimmed to n limbs.
+     */
+    private long[] reduced(UInt x) {
+        long[] xb = x.limbs();
+        int xn = UIntLimbs.significant(xb, 0, UInt.limbs(x.length));
+        if (UIntLimbs.compare(xb, 0, xn, m, 0, n) < 0) {
+            return Arrays.copyOf(xb, n);
+        }
+        long[] r = new long[n];
+        if (xn <= 2 * n) {
+            reduce(r, Arrays.copyOf(xb, 2 * n), new long[scratchSize()]);
+        } else {
+            UIntDivider.divRem(null, 0, r, 0, xb, 0, xn, m, 0, n);
+        }
+        return r;
+    }
+
+    /**
+     * Wraps n limbs as a UInt with the given length.
+     */
+    private UInt result(long[] r, int len) {
+        return new UInt(r.length < UInt.limbs(len) ? Arrays.copyOf(r, UInt.limbs(len)) : r, len);
+    }
+}
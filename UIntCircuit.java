@@ -0,0 +1,849 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * <h1>UIntCircuit</h1>
+ * A gate-level model of the UInt operations, for studying how adders and multipliers are built out of logic gates.
+ * A circuit is a netlist of two-input AND, OR and XOR gates and NOT gates, built with a Builder or by one of the
+ *   factories: adder, subtractor and negator, each over any of the UIntAdder designs, and the Booth and array
+ *   multipliers, which accumulate their partial products with whichever adder they are given.
+ * Building a circuit compiles it for evaluation:
+ * - Gates nothing depends on are dropped, and gates with a constant input are folded away as they are added,
+ *     so the gate count is what the design really needs.
+ * - Every gate is given a level, one more than the deepest of its inputs, and the gates are sorted by level and
+ *     then by type. The deepest level is the depth of the circuit, the length of its critical path in gates.
+ * - Each level then runs as a few unbroken stretches of one gate type, with the wire values laid out in the same
+ *     order, so evaluating is a handful of tight loops rather than a walk over a graph.
+ * Wire values are bit-packed: each wire is a long carrying 64 independent evaluations, one per bit, so every pass
+ *   over the gates evaluates the circuit 64 times. This is the same layout UIntBitSlicedBatch uses for its planes,
+ *   and apply takes and returns batches directly.
+ * A UIntCircuit never changes once it is built, so one instance can be evaluated from many threads at once.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public final class UIntCircuit {
+
+    /**
+     * The kinds of gate a netlist is made of.
+     */
+    public enum Gate {
+        AND, OR, XOR, NOT
+    }
+
+    // The wires that always carry 0 and 1. The inputs follow them, then the gates in evaluation order.
+    private static final int ZERO = 0;
+    private static final int ONE = 1;
+
+    // The number of input wires, and how they are grouped into operands, least-significant bit first.
+    private final int inputs;
+    private final int[] operandWidths;
+
+    // The inputs of each gate, in evaluation order. Gate g drives wire base + g, and x and y index wires.
+    private final int[] x;
+    private final int[] y;
+
+    // The gates run as stretches of one type: stretch r has type runType[r] and ends before gate runEnd[r].
+    private final Gate[] runType;
+    private final int[] runEnd;
+
+    // The wires read as the outputs, least-significant bit first.
+    private final int[] outputWires;
+
+    // The number of gates of each type, and the number of levels.
+    private final int[] counts;
+    private final int depth;
+
+    /**
+     * Constructs a new circuit from its compiled netlist.
+     */
+    private UIntCircuit(int inputs, int[] operandWidths, int[] x, int[] y, Gate[] runType, int[] runEnd,
+                        int[] outputWires, int[] counts, int depth) {
+        this.inputs = inputs;
+        this.operandWidths = operandWidths;
+        this.x = x;
+        this.y = y;
+        this.runType = runType;
+        this.runEnd = runEnd;
+        this.outputWires = outputWires;
+        this.counts = counts;
+        this.depth = depth;
+    }
+
+    /**
+     * Builds a circuit that adds two width-bit operands, with a width + 1 bit output whose top bit is the carry-out.
+     *
+     * @param width The number of bits in each operand.
+     * @param design The adder design used to resolve the carries.
+     * @return The new circuit.
+     */
+    public static UIntCircuit adder(int width, UIntAdder design) {
+        Builder b = new Builder();
+        int[] a = b.inputs(width);
+        int[] c = b.inputs(width);
+        return b.build(add(b, a, c, ZERO, design), width, width);
+    }
+
+    /**
+     * Builds a circuit that subtracts its second width-bit operand from its first, with a width-bit output.
+     * As with UInt.sub, a result that would be negative comes out as 0: the difference is a + ~b + 1, and every bit
+     *   of it is ANDed with the carry-out, which is clear exactly when b is larger.
+     *
+     * @param width The number of bits in each operand.
+     * @param design The adder design used to resolve the carries.
+     * @return The new circuit.
+     */
+    public static UIntCircuit subtractor(int width, UIntAdder design) {
+        Builder b = new Builder();
+        int[] a = b.inputs(width);
+        int[] c = b.inputs(width);
+        int[] sum = add(b, a, not(b, c), ONE, design);
+        int[] r = new int[width];
+        for (int i = 0; i < width; i++) {
+            r[i] = b.and(sum[i], sum[width]);
+        }
+        return b.build(r, width, width);
+    }
+
+    /**
+     * Builds a circuit that takes the 2's complement of a width-bit operand within its width, as UInt.negate does.
+     * The adder's second operand is all zeros, which folds it down to an incrementer.
+     *
+     * @param width The number of bits in the operand.
+     * @param design The adder design used to resolve the carries.
+     * @return The new circuit.
+     */
+    public static UIntCircuit negator(int width, UIntAdder design) {
+        Builder b = new Builder();
+        int[] a = b.inputs(width);
+        int[] sum = add(b, not(b, a), constants(width, ZERO), ONE, design);
+        return b.build(Arrays.copyOf(sum, width), width);
+    }
+
+    /**
+     * Builds a radix-2 Booth multiplier for two unsigned width-bit operands, with a 2 * width bit output.
+     * Bit pairs (b[i], b[i - 1]) of the multiplier, with a 0 below it and a 0 above it so it reads as unsigned,
+     *   choose row i: A << i for 01, -A << i for 10, and nothing otherwise. A negative row is ~A, sign-extended with
+     *   ones, with the +1 of the 2's complement fed in as the carry into its addition. Each row is added into the
+     *   running total from bit i up, since the bits below it are already final.
+     *
+     * @param width The number of bits in each operand.
+     * @param design The adder design used to add each row.
+     * @return The new circuit.
+     */
+    public static UIntCircuit boothMultiplier(int width, UIntAdder design) {
+        Builder b = new Builder();
+        int[] a = b.inputs(width);
+        int[] m = b.inputs(width);
+        int n = 2 * width;
+        int[] acc = constants(n, ZERO);
+        for (int i = 0; i <= width; i++) {
+            int bit = i < width ? m[i] : ZERO;
+            int below = i > 0 ? m[i - 1] : ZERO;
+            // The row is used when the pair differs, and subtracted when the upper bit of the pair is the 1.
+            int use = b.xor(bit, below);
+            int negative = b.and(bit, use);
+            int[] row = new int[n - i];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = j < width ? b.and(b.xor(a[j], bit), use) : negative;
+            }
+            accumulate(b, acc, i, row, negative, design);
+        }
+        return b.build(acc, width, width);
+    }
+
+    /**
+     * Builds a shift-and-add array multiplier for two unsigned width-bit operands, with a 2 * width bit output.
+     * Row i is A ANDed with bit i of the multiplier, added into the running total from bit i up.
+     * This is the baseline the Booth multiplier is measured against.
+     *
+     * @param width The number of bits in each operand.
+     * @param design The adder design used to add each row.
+     * @return The new circuit.
+     */
+    public static UIntCircuit arrayMultiplier(int width, UIntAdder design) {
+        Builder b = new Builder();
+        int[] a = b.inputs(width);
+        int[] m = b.inputs(width);
+        int n = 2 * width;
+        int[] acc = constants(n, ZERO);
+        for (int i = 0; i < width; i++) {
+            int[] row = new int[n - i];
+            for (int j = 0; j < row.length; j++) {
+                row[j] = j < width ? b.and(a[j], m[i]) : ZERO;
+            }
+            accumulate(b, acc, i, row, ZERO, design);
+        }
+        return b.build(acc, width, width);
+    }
+
+    /**
+     * Returns the number of input wires.
+     *
+     * @return The total width of the operands.
+     */
+    public int inputs() {
+        return inputs;
+    }
+
+    /**
+     * Returns the number of output wires.
+     *
+     * @return The width of the result.
+     */
+    public int outputs() {
+        return outputWires.length;
+    }
+
+    /**
+     * Returns the number of gates in the circuit.
+     *
+     * @return The gate count.
+     */
+    public int gates() {
+        return x.length;
+    }
+
+    /**
+     * Returns the number of gates of one type in the circuit.
+     *
+     * @param type The type of gate to count.
+     * @return The gate count for that type.
+     */
+    public int gates(Gate type) {
+        return counts[type.ordinal()];
+    }
+
+    /**
+     * Returns the depth of the circuit, the largest number of gates on any path from an input to an output.
+     *
+     * @return The depth in gates.
+     */
+    public int depth() {
+        return depth;
+    }
+
+    /**
+     * Evaluates the circuit 64 times at once, bit k of every input and output word belonging to evaluation k.
+     *
+     * @param in One word per input wire.
+     * @return One word per output wire.
+     * @throws IllegalArgumentException If there is not one word per input wire.
+     */
+    public long[] evaluate(long[] in) {
+        if (in.length != inputs) {
+            throw new IllegalArgumentException("Expected " + inputs + " input words, not " + in.length);
+        }
+        long[] w = new long[2 + inputs + x.length];
+        long[] out = new long[outputWires.length];
+        evaluate(in, w, out);
+        return out;
+    }
+
+    /**
+     * Evaluates the circuit once, on the low bits of each operand, which must be given in the order they were declared.
+     * Bits of an operand past its width are ignored.
+     *
+     * @param operands The operands.
+     * @return A new UInt, outputs() bits long, holding the result.
+     * @throws IllegalArgumentException If the number of operands is wrong.
+     */
+    public UInt apply(UInt... operands) {
+        if (operands.length != operandWidths.length) {
+            throw new IllegalArgumentException("Expected " + operandWidths.length + " operands, not " + operands.length);
+        }
+        long[] in = new long[inputs];
+        int wire = 0;
+        for (int k = 0; k < operands.length; k++) {
+            long[] limbs = operands[k].limbs();
+            int n = Math.min(operandWidths[k], operands[k].length);
+            for (int i = 0; i < n; i++) {
+                in[wire + i] = limbs[i >>> 6] >>> i & 1L;
+            }
+            wire += operandWidths[k];
+        }
+        long[] out = evaluate(in);
+        long[] limbs = new long[Math.max(1, UInt.limbs(out.length))];
+        for (int i = 0; i < out.length; i++) {
+            limbs[i >>> 6] |= (out[i] & 1L) << i;
+        }
+        return out.length <= 64 ? new UInt(limbs[0], out.length) : new UInt(limbs, out.length);
+    }
+
+    /**
+     * Evaluates the circuit on every lane of a set of batches at once, lane j of the result coming from lane j of
+     *   each operand. Each batch's planes feed the operand's input wires directly, with no transposing.
+     *
+     * @param operands One batch per operand, all of the same size.
+     * @return A new batch whose lanes are each outputs() bits long.
+     * @throws IllegalArgumentException If the number of operands is wrong or the batches differ in size.
+     */
+    public UIntBitSlicedBatch apply(UIntBitSlicedBatch... operands) {
+        if (operands.length != operandWidths.length) {
+            throw new IllegalArgumentException("Expected " + operandWidths.length + " operands, not " + operands.length);
+        }
+        long[] in = new long[inputs];
+        int wire = 0;
+        for (int k = 0; k < operands.length; k++) {
+            if (operands[k].size() != operands[0].size()) {
+                throw new IllegalArgumentException("Batch sizes differ: " + operands[0].size() + " and " + operands[k].size());
+            }
+            for (int i = 0; i < operandWidths[k]; i++) {
+                in[wire + i] = operands[k].plane(i);
+            }
+            wire += operandWidths[k];
+        }
+        return new UIntBitSlicedBatch(evaluate(in), operands.length == 0 ? 0 : operands[0].size(), outputWires.length);
+    }
+
+    /**
+     * Measures how fast the circuit evaluates on random inputs, by running it for about the given time after a
+     *   warm-up run of the same length.
+     *
+     * @param millis How long to time it for.
+     * @return The number of evaluations per second, 64 for every pass over the gates.
+     */
+    public double evaluationsPerSecond(long millis) {
+        Random rng = new Random(3310);
+        long[] in = new long[inputs];
+        for (int i = 0; i < inputs; i++) {
+            in[i] = rng.nextLong();
+        }
+        long[] w = new long[2 + inputs + x.length];
+        long[] out = new long[outputWires.length];
+        long nanos = millis * 1_000_000L;
+        for (int pass = 0; ; pass++) {
+            long reps = 0;
+            long start = System.nanoTime();
+            long elapsed;
+            do {
+                evaluate(in, w, out);
+                // Folding each result into the next input keeps the evaluations from being optimized away.
+                if (inputs > 0 && out.length > 0) {
+                    in[(int) (reps % inputs)] ^= out[0];
+                }
+                reps++;
+                elapsed = System.nanoTime() - start;
+            } while (elapsed < nanos);
+            if (pass > 0) {
+                return 64.0 * reps * 1e9 / elapsed;
+            }
+        }
+    }
+
+    /**
+     * Returns a one-line summary of the circuit's size: the inputs, outputs, gates of each type and depth.
+     *
+     * @return The summary.
+     */
+    @Override
+    public String toString() {
+        return String.format("%d inputs, %d outputs, %d gates (%d AND, %d OR, %d XOR, %d NOT), depth %d",
+                inputs, outputWires.length, x.length, counts[0], counts[1], counts[2], counts[3], depth);
+    }
+
+    /**
+     * Runs every gate in order over the wire words in w, then copies the outputs into out.
+     */
+    private void evaluate(long[] in, long[] w, long[] out) {
+        w[ZERO] = 0L;
+        w[ONE] = -1L;
+        System.arraycopy(in, 0, w, 2, inputs);
+        int base = 2 + inputs;
+        int g = 0;
+        for (int r = 0; r < runType.length; r++) {
+            int end = runEnd[r];
+            switch (runType[r]) {
+                case AND:
+                    for (; g < end; g++) {
+                        w[base + g] = w[x[g]] & w[y[g]];
+                    }
+                    break;
+                case OR:
+                    for (; g < end; g++) {
+                        w[base + g] = w[x[g]] | w[y[g]];
+                    }
+                    break;
+                case XOR:
+                    for (; g < end; g++) {
+                        w[base + g] = w[x[g]] ^ w[y[g]];
+                    }
+                    break;
+                default:
+                    for (; g < end; g++) {
+                        w[base + g] = ~w[x[g]];
+                    }
+                    break;
+            }
+        }
+        for (int i = 0; i < out.length; i++) {
+            out[i] = w[outputWires[i]];
+        }
+    }
+
+    /**
+     * Adds a row into bits from..acc.length of the running total acc, with an incoming carry, dropping the carry-out.
+     */
+    private static void accumulate(Builder b, int[] acc, int from, int[] row, int carry, UIntAdder design) {
+        int[] sum = add(b, Arrays.copyOfRange(acc, from, acc.length), row, carry, design);
+        System.arraycopy(sum, 0, acc, from, row.length);
+    }
+
+    /**
+     * Builds the gates that add two equal-width runs of wires with an incoming carry, in the given design.
+     *
+     * @return The sum wires, with the carry-out as the extra top wire.
+     */
+    private static int[] add(Builder b, int[] a, int[] c, int carry, UIntAdder design) {
+        int n = a.length;
+        int[] g = new int[n];
+        int[] p = new int[n];
+        for (int i = 0; i < n; i++) {
+            g[i] = b.and(a[i], c[i]);
+            p[i] = b.xor(a[i], c[i]);
+        }
+        switch (design) {
+            case CARRY_LOOKAHEAD:
+                return lookahead(b, g, p, carry);
+            case CARRY_SELECT:
+                return select(b, g, p, carry);
+            case KOGGE_STONE:
+                return koggeStone(b, g, p, carry);
+            default:
+                return ripple(b, g, p, 0, n, carry, new int[n + 1]);
+        }
+    }
+
+    /**
+     * Ripples a carry through bits from..to of generate and propagate wires, storing the sums in s and the carry-out
+     *   in s[to], and returns s.
+     */
+    private static int[] ripple(Builder b, int[] g, int[] p, int from, int to, int carry, int[] s) {
+        for (int i = from; i < to; i++) {
+            s[i] = b.xor(p[i], carry);
+            carry = b.or(g[i], b.and(p[i], carry));
+        }
+        s[to] = carry;
+        return s;
+    }
+
+    /**
+     * The carry-lookahead adder, in groups of four bits. The carry into each bit of a group is built straight from
+     *   the group's carry in, as the OR over j of g[j] ANDed with every p above it, so it takes a fixed number of
+     *   levels. The carries between groups ripple.
+     */
+    private static int[] lookahead(Builder b, int[] g, int[] p, int carry) {
+        int n = g.length;
+        int[] s = new int[n + 1];
+        for (int from = 0; from < n; from += 4) {
+            int to = Math.min(n, from + 4);
+            int[] carries = new int[to - from + 1];
+            carries[0] = carry;
+            for (int k = from; k < to; k++) {
+                // Bit k carries out if some bit j at or below it generates (or the group's carry in arrives, for
+                //   j = from - 1) and every bit above j up to k propagates.
+                int[] terms = new int[k - from + 2];
+                for (int j = from - 1; j <= k; j++) {
+                    int[] factors = new int[k - j + 1];
+                    factors[0] = j < from ? carry : g[j];
+                    for (int i = j + 1; i <= k; i++) {
+                        factors[i - j] = p[i];
+                    }
+                    terms[j - from + 1] = b.and(factors);
+                }
+                carries[k - from + 1] = b.or(terms);
+            }
+            for (int k = from; k < to; k++) {
+                s[k] = b.xor(p[k], carries[k - from]);
+            }
+            carry = carries[to - from];
+        }
+        s[n] = carry;
+        return s;
+    }
+
+    /**
+     * The carry-select adder, in blocks of about the square root of the width. Each block past the first ripples
+     *   twice, once as if its carry in were 0 and once as if it were 1, and the real carry picks between the two.
+     */
+    private static int[] select(Builder b, int[] g, int[] p, int carry) {
+        int n = g.length;
+        int block = Math.max(1, (int) Math.round(Math.sqrt(n)));
+        int[] s = ripple(b, g, p, 0, Math.min(block, n), carry, new int[n + 1]);
+        carry = s[Math.min(block, n)];
+        for (int from = block; from < n; from += block) {
+            int to = Math.min(n, from + block);
+            int[] s0 = ripple(b, g, p, from, to, ZERO, new int[n + 1]);
+            int[] s1 = ripple(b, g, p, from, to, ONE, new int[n + 1]);
+            int notCarry = b.not(carry);
+            for (int k = from; k < to; k++) {
+                s[k] = b.or(b.and(s0[k], notCarry), b.and(s1[k], carry));
+            }
+            // A block that carries out with a carry in of 0 also does with 1, so the carry-out is c0 | (carry & c1).
+            carry = b.or(s0[to], b.and(s1[to], carry));
+        }
+        s[n] = carry;
+        return s;
+    }
+
+    /**
+     * The Kogge-Stone adder. After the step at distance d, G[i] and P[i] cover bits i - 2d + 1 through i, so log2(n)
+     *   steps give every bit the carry out of everything below it. The incoming carry acts as a generate just
+     *   below bit 0.
+     */
+    private static int[] koggeStone(Builder b, int[] g, int[] p, int carry) {
+        int n = g.length;
+        int[] s = new int[n + 1];
+        if (n == 0) {
+            s[0] = carry;
+            return s;
+        }
+        int[] bigG = g.clone();
+        int[] bigP = p.clone();
+        bigG[0] = b.or(g[0], b.and(p[0], carry));
+        for (int d = 1; d < n; d <<= 1) {
+            int[] nextG = bigG.clone();
+            int[] nextP = bigP.clone();
+            for (int i = d; i < n; i++) {
+                nextG[i] = b.or(bigG[i], b.and(bigP[i], bigG[i - d]));
+                nextP[i] = b.and(bigP[i], bigP[i - d]);
+            }
+            bigG = nextG;
+            bigP = nextP;
+        }
+        s[0] = b.xor(p[0], carry);
+        for (int i = 1; i < n; i++) {
+            s[i] = b.xor(p[i], bigG[i - 1]);
+        }
+        s[n] = bigG[n - 1];
+        return s;
+    }
+
+    /**
+     * Returns the NOT of every wire in a run.
+     */
+    private static int[] not(Builder b, int[] a) {
+        int[] r = new int[a.length];
+        for (int i = 0; i < a.length; i++) {
+            r[i] = b.not(a[i]);
+        }
+        return r;
+    }
+
+    /**
+     * Returns a run of n copies of a constant wire.
+     */
+    private static int[] constants(int n, int wire) {
+        int[] r = new int[n];
+        Arrays.fill(r, wire);
+        return r;
+    }
+
+    /**
+     * <h1>Builder</h1>
+     * Assembles a netlist one gate at a time. Every method returns the wire the new gate drives, and a gate can only
+     *   read wires that already exist, so the netlist is built in an order where each gate follows its inputs.
+     * Gates are simplified as they are added: an input of 0 or 1 is folded into the result (x AND 1 is x, x XOR 1 is
+     *   NOT x, and so on), as is a gate whose two inputs are the same wire. Such a gate costs nothing.
+     */
+    public static final class Builder {
+
+        // The gate type and inputs of every wire, in the order the wires were made. Inputs and constants have no type.
+        private Gate[] type = new Gate[64];
+        private int[] in1 = new int[64];
+        private int[] in2 = new int[64];
+        private int wires = 2;
+
+        // The input wires, in the order they were declared.
+        private int[] inputWires = new int[16];
+        private int inputCount;
+
+        /**
+         * Returns the wire that always carries 0.
+         *
+         * @return The wire.
+         */
+        public int zero() {
+            return ZERO;
+        }
+
+        /**
+         * Returns the wire that always carries 1.
+         *
+         * @return The wire.
+         */
+        public int one() {
+            return ONE;
+        }
+
+        /**
+         * Declares a new input wire.
+         *
+         * @return The wire.
+         */
+        public int input() {
+            if (inputCount == inputWires.length) {
+                inputWires = Arrays.copyOf(inputWires, 2 * inputCount);
+            }
+            int w = wire(null, -1, -1);
+            inputWires[inputCount++] = w;
+            return w;
+        }
+
+        /**
+         * Declares n new input wires, which make up one operand, least-significant bit first.
+         *
+         * @param n The number of wires.
+         * @return The wires.
+         */
+        public int[] inputs(int n) {
+            int[] r = new int[n];
+            for (int i = 0; i < n; i++) {
+                r[i] = input();
+            }
+            return r;
+        }
+
+        /**
+         * Adds an AND gate.
+         *
+         * @param a The first input wire.
+         * @param b The second input wire.
+         * @return The output wire.
+         * @throws IllegalArgumentException If either input is not a wire of this builder.
+         */
+        public int and(int a, int b) {
+            checkWire(a);
+            checkWire(b);
+            if (a == ZERO || b == ZERO) {
+                return ZERO;
+            }
+            if (a == ONE || a == b) {
+                return b;
+            }
+            if (b == ONE) {
+                return a;
+            }
+            return wire(Gate.AND, a, b);
+        }
+
+        /**
+         * Adds an OR gate.
+         *
+         * @param a The first input wire.
+         * @param b The second input wire.
+         * @return The output wire.
+         * @throws IllegalArgumentException If either input is not a wire of this builder.
+         */
+        public int or(int a, int b) {
+            checkWire(a);
+            checkWire(b);
+            if (a == ONE || b == ONE) {
+                return ONE;
+            }
+            if (a == ZERO || a == b) {
+                return b;
+            }
+            if (b == ZERO) {
+                return a;
+            }
+            return wire(Gate.OR, a, b);
+        }
+
+        /**
+         * Adds an XOR gate.
+         *
+         * @param a The first input wire.
+         * @param b The second input wire.
+         * @return The output wire.
+         * @throws IllegalArgumentException If either input is not a wire of this builder.
+         */
+        public int xor(int a, int b) {
+            checkWire(a);
+            checkWire(b);
+            if (a == b) {
+                return ZERO;
+            }
+            if (a == ZERO) {
+                return b;
+            }
+            if (b == ZERO) {
+                return a;
+            }
+            if (a == ONE) {
+                return not(b);
+            }
+            if (b == ONE) {
+                return not(a);
+            }
+            return wire(Gate.XOR, a, b);
+        }
+
+        /**
+         * Adds a NOT gate.
+         *
+         * @param a The input wire.
+         * @return The output wire.
+         * @throws IllegalArgumentException If the input is not a wire of this builder.
+         */
+        public int not(int a) {
+            checkWire(a);
+            if (a == ZERO || a == ONE) {
+                return ONE - a;
+            }
+            if (type[a] == Gate.NOT) {
+                return in1[a];
+            }
+            return wire(Gate.NOT, a, a);
+        }
+
+        /**
+         * Adds a balanced tree of AND gates over any number of wires, which is 1 for no wires.
+         *
+         * @param a The input wires.
+         * @return The output wire.
+         * @throws IllegalArgumentException If any input is not a wire of this builder.
+         */
+        public int and(int... a) {
+            return tree(Gate.AND, a, 0, a.length);
+        }
+
+        /**
+         * Adds a balanced tree of OR gates over any number of wires, which is 0 for no wires.
+         *
+         * @param a The input wires.
+         * @return The output wire.
+         * @throws IllegalArgumentException If any input is not a wire of this builder.
+         */
+        public int or(int... a) {
+            return tree(Gate.OR, a, 0, a.length);
+        }
+
+        /**
+         * Compiles the netlist into a circuit with the given output wires, least-significant bit first.
+         * The inputs are grouped into operands of the given widths, in the order they were declared,
+         *   or into a single operand if no widths are given.
+         *
+         * @param outputs The output wires.
+         * @param operandWidths The width of each operand.
+         * @return The new circuit.
+         * @throws IllegalArgumentException If an output is not a wire of this builder, or the operand widths do not
+         *   add up to the number of inputs.
+         */
+        public UIntCircuit build(int[] outputs, int... operandWidths) {
+            if (operandWidths.length == 0) {
+                operandWidths = new int[]{inputCount};
+            }
+            if (Arrays.stream(operandWidths).sum() != inputCount) {
+                throw new IllegalArgumentException("Operand widths " + Arrays.toString(operandWidths)
+                        + " do not add up to " + inputCount + " inputs");
+            }
+            // Wires are made after their inputs, so one backward pass finds every gate an output depends on.
+            boolean[] live = new boolean[wires];
+            for (int w : outputs) {
+                live[checkWire(w)] = true;
+            }
+            for (int w = wires - 1; w >= 2; w--) {
+                if (live[w] && type[w] != null) {
+                    live[in1[w]] = true;
+                    live[in2[w]] = true;
+                }
+            }
+            // One forward pass gives every gate its level, and the live gates are then sorted by level and type.
+            int[] level = new int[wires];
+            int depth = 0;
+            int gates = 0;
+            for (int w = 2; w < wires; w++) {
+                if (type[w] != null) {
+                    level[w] = 1 + Math.max(level[in1[w]], level[in2[w]]);
+                    if (live[w]) {
+                        depth = Math.max(depth, level[w]);
+                        gates++;
+                    }
+                }
+            }
+            long[] order = new long[gates];
+            int k = 0;
+            for (int w = 2; w < wires; w++) {
+                if (type[w] != null && live[w]) {
+                    order[k++] = (long) level[w] << 34 | (long) type[w].ordinal() << 31 | w;
+                }
+            }
+            Arrays.sort(order);
+            // Renumber the wires: the constants, then the inputs in order, then the gates in evaluation order.
+            int[] slot = new int[wires];
+            slot[ONE] = ONE;
+            for (int i = 0; i < inputCount; i++) {
+                slot[inputWires[i]] = 2 + i;
+            }
+            int base = 2 + inputCount;
+            int[] x = new int[gates];
+            int[] y = new int[gates];
+            int[] counts = new int[Gate.values().length];
+            Gate[] runType = new Gate[gates];
+            int[] runEnd = new int[gates];
+            int runs = 0;
+            for (int g = 0; g < gates; g++) {
+                int w = (int) (order[g] & 0x7FFFFFFFL);
+                slot[w] = base + g;
+                x[g] = slot[in1[w]];
+                y[g] = slot[in2[w]];
+                counts[type[w].ordinal()]++;
+                if (runs > 0 && runType[runs - 1] == type[w]) {
+                    runEnd[runs - 1] = g + 1;
+                } else {
+                    runType[runs] = type[w];
+                    runEnd[runs++] = g + 1;
+                }
+            }
+            int[] outputWires = new int[outputs.length];
+            for (int i = 0; i < outputs.length; i++) {
+                outputWires[i] = slot[outputs[i]];
+            }
+            return new UIntCircuit(inputCount, operandWidths.clone(), x, y, Arrays.copyOf(runType, runs),
+                    Arrays.copyOf(runEnd, runs), outputWires, counts, depth);
+        }
+
+        /**
+         * Adds a balanced tree of one gate type over a[from..to).
+         */
+        private int tree(Gate t, int[] a, int from, int to) {
+            if (to - from == 0) {
+                return t == Gate.AND ? ONE : ZERO;
+            }
+            if (to - from == 1) {
+                return checkWire(a[from]);
+            }
+            int mid = (from + to) >>> 1;
+            int l = tree(t, a, from, mid);
+            int r = tree(t, a, mid, to);
+            return t == Gate.AND ? and(l, r) : or(l, r);
+        }
+
+        /**
+         * Returns w if it names a wire this builder has made, and throws otherwise, so that a bad wire is reported
+         *   where it is passed in rather than when the netlist is compiled or run.
+         */
+        private int checkWire(int w) {
+            if (w < 0 || w >= wires) {
+                throw new IllegalArgumentException("Wire " + w + " does not exist; only " + wires + " have been made");
+            }
+            return w;
+        }
+
+        /**
+         * Records a new wire and returns it.
+         */
+        private int wire(Gate t, int a, int b) {
+            if (wires == type.length) {
+                type = Arrays.copyOf(type, 2 * wires);
+                in1 = Arrays.copyOf(in1, 2 * wires);
+                in2 = Arrays.copyOf(in2, 2 * wires);
+            }
+            type[wires] = t;
+            in1[wires] = a;
+            in2[wires] = b;
+            return wires++;
+        }
+    }
+}
@@ -0,0 +1,452 @@
+import java.util.Arrays;
+
+/**
+ * <h1>UIntDivider</h1>
+ * The division engine behind UInt.div, UInt.rem and UInt.divRem.
+ * Divisors of a single limb are handled with one 128-by-64-bit division per limb, and other normal sizes use
+ *   Knuth's Algorithm D on whole limbs. Once the divisor reaches BURNIKEL_ZIEGLER_THRESHOLD limbs and the
+ *   quotient is at least BURNIKEL_ZIEGLER_OFFSET limbs long, the recursive Burnikel-Ziegler algorithm takes over.
+ *   It reduces division to multiplications of half the size, so its cost tracks the cost of UInt.mul.
+ * For divisors of NEWTON_THRESHOLD limbs and up, with a quotient at least twice as long, a fixed-point reciprocal
+ *   of the divisor is computed once by Newton iteration, and every divisor-sized block of the quotient then costs
+ *   two multiplications, making division O(M(n)).
+ * The crossovers can be tuned with the uint.burnikelZieglerThreshold, uint.burnikelZieglerOffset and
+ *   uint.newtonThreshold system properties (in limbs).
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntDivider {
+
+    // The number of divisor limbs needed before Burnikel-Ziegler beats Algorithm D.
+    static final int BURNIKEL_ZIEGLER_THRESHOLD = Math.max(2, Integer.getInteger("uint.burnikelZieglerThreshold", 80));
+
+    // How many limbs longer than the divisor the dividend must be before Burnikel-Ziegler is worthwhile.
+    static final int BURNIKEL_ZIEGLER_OFFSET = Math.max(0, Integer.getInteger("uint.burnikelZieglerOffset", 40));
+
+    // The number of divisor limbs needed before Newton reciprocal division beats Burnikel-Ziegler.
+    static final int NEWTON_THRESHOLD = Math.max(2, Integer.getInteger("uint.newtonThreshold", 8192));
+
+    private UIntDivider() {
+    }
+
+    /**
+     * Divides one run of limbs by another, storing the quotient and the remainder.
+     * The quotient takes max(aLen - bLen + 1, 0) limbs of q and the remainder takes bLen limbs of r.
+     * Leading zero limbs in the divisor can make the real quotient longer than that, so q must also hold at least
+     *   max(n - m + 1, 0) limbs, where n and m are the significant limbs of the dividend and divisor.
+     * Neither result may overlap the operands or each other, and the divisor must not be zero.
+     *
+     * @param q The array receiving the quotient, or null if it is not needed.
+     * @param qOff The offset of the quotient in q.
+     * @param r The array receiving the remainder, or null if it is not needed.
+     * @param rOff The offset of the remainder in r.
+     * @param a The array holding the dividend.
+     * @param aOff The offset of the dividend in a.
+     * @param aLen The number of limbs in the dividend.
+     * @param b The array holding the divisor.
+     * @param bOff The offset of the divisor in b.
+     * @param bLen The number of limbs in the divisor.
+     */
+    static void divRem(long[] q, int qOff, long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        // Leading zero limbs would throw off the quotient estimates, so only the significant limbs are divided.
+        int n = UIntLimbs.significant(a, aOff, aLen);
+        int m = UIntLimbs.significant(b, bOff, bLen);
+        if (m == 0) {
+            throw new ArithmeticException("UInt divide by zero");
+        }
+        // The kernels write n - m + 1 quotient limbs, which is more than aLen - bLen + 1 when the divisor is padded.
+        int qLen = Math.max(n - m + 1, 0);
+        if (q != null && q.length - qOff < qLen) {
+            throw new IllegalArgumentException("The quotient needs " + qLen + " limbs, but only "
+                    + (q.length - qOff) + " are available");
+        }
+        // A caller's quotient is cleared over all the limbs it expects, even past the ones the kernels write.
+        int qFill = q == null ? qLen : Math.max(qLen, Math.min(aLen - bLen + 1, q.length - qOff));
+        // A result the caller does not need still has to go somewhere, so it is put in scratch space.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            if (q == null) {
+                qOff = scratch.alloc(qLen);
+                q = scratch.chunk;
+            }
+            if (r == null) {
+                rOff = scratch.alloc(bLen);
+                r = scratch.chunk;
+            }
+            Arrays.fill(q, qOff, qOff + qFill, 0L);
+            Arrays.fill(r, rOff, rOff + bLen, 0L);
+
+            if (n < m) {
+                System.arraycopy(a, aOff, r, rOff, n);
+            } else if (m == 1) {
+                r[rOff] = divideByLimb(q, qOff, a, aOff, n, b[bOff]);
+            } else if (m >= NEWTON_THRESHOLD && n - m >= 2 * m) {
+                newton(q, qOff, r, rOff, a, aOff, n, b, bOff, m);
+            } else if (m >= BURNIKEL_ZIEGLER_THRESHOLD && n - m >= BURNIKEL_ZIEGLER_OFFSET) {
+                burnikelZiegler(q, qOff, r, rOff, a, aOff, n, b, bOff, m);
+            } else {
+                knuth(q, qOff, r, rOff, a, aOff, n, b, bOff, m);
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Divides a run of limbs by a single limb, storing the n-limb quotient in q.
+     *
+     * @return The remainder.
+     */
+    static long divideByLimb(long[] q, int qOff, long[] a, int aOff, int n, long d) {
+        long[] rem = new long[1];
+        for (int i = n - 1; i >= 0; i--) {
+            q[qOff + i] = UIntLimbs.divWord(rem[0], a[aOff + i], d, rem);
+        }
+        return rem[0];
+    }
+
+    /**
+     * Divides one run of limbs by another using Knuth's Algorithm D (TAOCP vol. 2, 4.3.1).
+     * Both operands are shifted so the divisor's top bit is set. Each quotient limb is then estimated from the
+     *   top two limbs of the running remainder, refined with the divisor's second limb, and corrected by at most
+     *   one add-back after the multiply-subtract.
+     * Requires aLen >= bLen >= 2 and a non-zero top limb in b.
+     */
+    static void knuth(long[] q, int qOff, long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int s = Long.numberOfLeadingZeros(b[bOff + bLen - 1]);
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int vOff = scratch.alloc(bLen + aLen + 1);
+            long[] v = scratch.chunk;
+            long[] u = v;
+            int uOff = vOff + bLen;
+            UIntLimbs.shiftLeft(v, vOff, b, bOff, bLen, s);
+            u[uOff + aLen] = UIntLimbs.shiftLeft(u, uOff, a, aOff, aLen, s);
+
+            long v1 = v[vOff + bLen - 1];
+            long v2 = v[vOff + bLen - 2];
+            long[] rem = new long[1];
+            for (int j = aLen - bLen; j >= 0; j--) {
+                long u2 = u[uOff + j + bLen];
+                long u1 = u[uOff + j + bLen - 1];
+                long u0 = u[uOff + j + bLen - 2];
+
+                // Estimate the quotient limb from the top two limbs. The estimate is never too small,
+                //   and after refining against v2 it is at most one too large.
+                long qhat;
+                long rhat;
+                boolean refine = true;
+                if (u2 == v1) {
+                    qhat = -1L;
+                    rhat = u1 + v1;
+                    // Once rhat overflows a limb, qhat * v2 can no longer exceed rhat:u0.
+                    refine = Long.compareUnsigned(rhat, v1) >= 0;
+                } else {
+                    qhat = UIntLimbs.divWord(u2, u1, v1, rem);
+                    rhat = rem[0];
+                }
+                while (refine) {
+                    long hi = UIntLimbs.mulHigh(qhat, v2);
+                    long lo = qhat * v2;
+                    if (Long.compareUnsigned(hi, rhat) < 0 || (hi == rhat && Long.compareUnsigned(lo, u0) <= 0)) {
+                        break;
+                    }
+                    qhat--;
+                    long previous = rhat;
+                    rhat += v1;
+                    refine = Long.compareUnsigned(rhat, previous) >= 0;
+                }
+
+                // Multiply and subtract. If that went negative, the estimate was one too large, so add v back.
+                long borrow = UIntLimbs.subMul1(u, uOff + j, v, vOff, bLen, qhat);
+                u[uOff + j + bLen] = u2 - borrow;
+                if (Long.compareUnsigned(u2, borrow) < 0) {
+                    qhat--;
+                    u[uOff + j + bLen] += UIntLimbs.addN(u, uOff + j, u, uOff + j, v, vOff, bLen, 0L);
+                }
+                q[qOff + j] = qhat;
+            }
+
+            // The remainder is what is left in the low limbs of u, shifted back down.
+            UIntLimbs.shiftRight(r, rOff, u, uOff, bLen, s);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Divides one run of limbs by another using the recursive algorithm of Burnikel and Ziegler,
+     *   "Fast Recursive Division" (MPI-I-98-1-022).
+     * The divisor is shifted so it fills a block of n limbs with its top bit set, where n is a multiple of a
+     *   power of two small enough that the recursion bottoms out near the threshold. The dividend is then cut
+     *   into blocks of n limbs and divided two blocks at a time, from the top down, with each remainder
+     *   carried into the next step.
+     */
+    private static void burnikelZiegler(long[] q, int qOff, long[] r, int rOff,
+                                        long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int m = 1 << (32 - Integer.numberOfLeadingZeros(bLen / BURNIKEL_ZIEGLER_THRESHOLD));
+        int j = (bLen + m - 1) / m;
+        int n = j * m;
+
+        // Shift both operands left by sigma bits, so the divisor's top bit lands at the top of n limbs.
+        int limbShift = n - bLen;
+        int bitShift = Long.numberOfLeadingZeros(b[bOff + bLen - 1]);
+        // Leave room for a top block whose highest bit is clear, so the first step's quotient fits in one block.
+        int shiftedLen = aLen + limbShift + 1;
+        int t = Math.max(2, shiftedLen / n + 1);
+
+        // Scratch layout: the shifted divisor, the shifted dividend, the quotient blocks,
+        //   the two blocks being divided and the running remainder.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int bs = scratch.alloc(n + t * n + (t - 1) * n + 2 * n + n);
+            long[] w = scratch.chunk;
+            int as = bs + n;
+            int qs = as + t * n;
+            int z = qs + (t - 1) * n;
+            int ri = z + 2 * n;
+            UIntLimbs.shiftLeft(w, bs + limbShift, b, bOff, bLen, bitShift);
+            w[as + limbShift + aLen] = UIntLimbs.shiftLeft(w, as + limbShift, a, aOff, aLen, bitShift);
+
+            // Divide the top two blocks, then keep bringing down one block at a time.
+            int qLen = aLen - bLen + 1;
+            System.arraycopy(w, as + (t - 2) * n, w, z, 2 * n);
+            for (int i = t - 2; i > 0; i--) {
+                divide2n1n(w, qs + i * n, w, ri, w, z, w, bs, n);
+                System.arraycopy(w, ri, w, z + n, n);
+                System.arraycopy(w, as + (i - 1) * n, w, z, n);
+            }
+            divide2n1n(w, qs, w, ri, w, z, w, bs, n);
+
+            System.arraycopy(w, qs, q, qOff, qLen);
+            // Undo the shift on the remainder. Its low limbShift limbs are zero, so the real remainder is
+            //   the top bLen limbs shifted down by the bit shift.
+            UIntLimbs.shiftRight(r, rOff, w, ri + limbShift, bLen, bitShift);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Divides a 2n-limb value by an n-limb divisor with its top bit set, where the quotient fits in n limbs.
+     * Even block sizes above the threshold are split in half and handled as two 3-by-2 block divisions.
+     */
+    private static void divide2n1n(long[] q, int qOff, long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            if ((n & 1) != 0 || n < BURNIKEL_ZIEGLER_THRESHOLD) {
+                int qt = scratch.alloc(n + 1);
+                long[] w = scratch.chunk;
+                knuthOrLimb(w, qt, r, rOff, a, aOff, 2 * n, b, bOff, n);
+                System.arraycopy(w, qt, q, qOff, n);
+                return;
+            }
+            int h = n / 2;
+            // Divide the top three half-blocks first, then bring down the last half-block after the remainder.
+            int t = scratch.alloc(3 * h);
+            long[] w = scratch.chunk;
+            divide3n2n(q, qOff + h, w, t + h, a, aOff + h, b, bOff, h);
+            System.arraycopy(a, aOff, w, t, h);
+            divide3n2n(q, qOff, r, rOff, w, t, b, bOff, h);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Divides a 3h-limb value by a 2h-limb divisor with its top bit set, where the quotient fits in h limbs.
+     * The quotient is estimated by dividing the top 2h limbs by the top h limbs of the divisor, and then
+     *   corrected, usually not at all and at most twice, by adding the divisor back.
+     */
+    private static void divide3n2n(long[] q, int qOff, long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int h) {
+        // Scratch layout: rhat, whose top h + 1 limbs double as r1, then d = q * b2.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int rhat = scratch.alloc(2 * h + 1 + 2 * h);
+            long[] w = scratch.chunk;
+            int r1 = rhat + h;
+            int d = rhat + 2 * h + 1;
+            if (UIntLimbs.compare(a, aOff + 2 * h, h, b, bOff + h, h) < 0) {
+                divide2n1n(q, qOff, w, r1, a, aOff + h, b, bOff + h, h);
+            } else {
+                // The top half of a equals the top half of b, so the estimate is B^h - 1
+                //   and r1 = a1:a2 - (B^h - 1) * b1 = a2 + b1.
+                Arrays.fill(q, qOff, qOff + h, -1L);
+                w[r1 + h] = UIntLimbs.addN(w, r1, a, aOff + h, b, bOff + h, h, 0L);
+            }
+
+            // rhat = r1 * B^h + a3 - q * b2, with the subtraction deferred until rhat is known to be large enough.
+            UIntMultiplier.mul(w, d, q, qOff, h, b, bOff, h);
+            System.arraycopy(a, aOff, w, rhat, h);
+            while (UIntLimbs.compare(w, rhat, 2 * h + 1, w, d, 2 * h) < 0) {
+                UIntLimbs.add(w, rhat, w, rhat, 2 * h + 1, b, bOff, 2 * h);
+                UIntLimbs.decrement(q, qOff, q, qOff, h, 1L);
+            }
+            UIntLimbs.sub(w, rhat, w, rhat, 2 * h + 1, w, d, 2 * h);
+            System.arraycopy(w, rhat, r, rOff, 2 * h);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Runs the base case of the recursion, which may see leading zero limbs in either operand.
+     */
+    private static void knuthOrLimb(long[] q, int qOff, long[] r, int rOff,
+                                    long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int n = UIntLimbs.significant(a, aOff, aLen);
+        int m = UIntLimbs.significant(b, bOff, bLen);
+        Arrays.fill(r, rOff, rOff + bLen, 0L);
+        if (n < m) {
+            System.arraycopy(a, aOff, r, rOff, n);
+        } else if (m == 1) {
+            r[rOff] = divideByLimb(q, qOff, a, aOff, n, b[bOff]);
+        } else {
+            knuth(q, qOff, r, rOff, a, aOff, n, b, bOff, m);
+        }
+    }
+
+    /**
+     * Divides one run of limbs by another using a reciprocal of the divisor computed by Newton iteration.
+     * With the divisor shifted so its top bit is set, X = floor(B^2m / b) is computed once. The dividend is
+     *   then divided one m-limb block at a time from the top down: the quotient block is estimated as the top
+     *   half of the running value times X, which is never too large and at most a few units too small,
+     *   and the remainder is fixed up by subtracting the divisor until it is below it.
+     * Requires aLen >= bLen >= 2 and a non-zero top limb in b.
+     */
+    static void newton(long[] q, int qOff, long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int m = bLen;
+        int s = Long.numberOfLeadingZeros(b[bOff + m - 1]);
+        int t = (aLen + 1 + m - 1) / m;
+
+        // Scratch layout: the shifted divisor and dividend, the reciprocal, the quotient blocks, the running
+        //   value z (the remainder in its top m limbs, the next block below), and the two products.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int v = scratch.alloc(m + t * m + (m + 1) + t * m + 2 * m + (2 * m + 1) + 2 * m);
+            long[] w = scratch.chunk;
+            int u = v + m;
+            int x = u + t * m;
+            int qs = x + m + 1;
+            int z = qs + t * m;
+            int estimate = z + 2 * m;
+            int back = estimate + 2 * m + 1;
+            UIntLimbs.shiftLeft(w, v, b, bOff, m, s);
+            w[u + aLen] = UIntLimbs.shiftLeft(w, u, a, aOff, aLen, s);
+            reciprocal(w, x, w, v, m);
+
+            for (int i = t - 1; i >= 0; i--) {
+                System.arraycopy(w, u + i * m, w, z, m);
+                // qhat = floor(floor(z / B^m) * X / B^m). Since z < v * B^m, the estimate fits in m limbs.
+                //   While the running remainder is still zero, the block alone is below 2v and needs no estimate.
+                int zHi = UIntLimbs.significant(w, z + m, m);
+                if (zHi != 0) {
+                    UIntMultiplier.mul(w, estimate, w, z + m, zHi, w, x, m + 1);
+                    // Only zHi + m + 1 limbs were written, so the rest still holds the previous block's product.
+                    Arrays.fill(w, estimate + zHi + m + 1, estimate + 2 * m + 1, 0L);
+                    System.arraycopy(w, estimate + m, w, qs + i * m, m);
+                    // z - qhat * v is the remainder, give or take a few copies of v.
+                    int qLen = UIntLimbs.significant(w, qs + i * m, m);
+                    UIntMultiplier.mul(w, back, w, qs + i * m, qLen, w, v, m);
+                    Arrays.fill(w, back + qLen + m, back + 2 * m, 0L);
+                    UIntLimbs.subN(w, z, w, z, w, back, 2 * m, 0L);
+                }
+                while (UIntLimbs.compare(w, z, 2 * m, w, v, m) >= 0) {
+                    UIntLimbs.sub(w, z, w, z, 2 * m, w, v, m);
+                    UIntLimbs.increment(w, qs + i * m, w, qs + i * m, m, 1L);
+                }
+                // The remainder moves up to become the top half of the next step.
+                System.arraycopy(w, z, w, z + m, m);
+            }
+
+            System.arraycopy(w, qs, q, qOff, aLen - bLen + 1);
+            UIntLimbs.shiftRight(r, rOff, w, z + m, m, s);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Computes X = floor(B^2k / d) exactly, for a k-limb d with its top bit set, storing the k+1 limbs of X in x.
+     * The reciprocal of the top half of d is computed recursively, and one Newton step
+     *   X = X0 + X0 * (B^2k - d * X0) / B^2k doubles its precision. The step roughly squares whatever error X0
+     *   had, so left alone the error would compound over the levels of the recursion. Instead each level
+     *   multiplies back once and moves X by the few units that d * X is off, so every level starts from an exact
+     *   reciprocal and the correction at the next level up stays just as short.
+     */
+    static void reciprocal(long[] x, int xOff, long[] d, int dOff, int k) {
+        // Up to the base case the reciprocal is computed exactly by long division.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            if (k < 2 * BURNIKEL_ZIEGLER_THRESHOLD || k < 4) {
+                // Scratch layout: B^2k, then the quotient and remainder of dividing it by d.
+                int one = scratch.alloc(2 * k + 1 + k + 2 + k);
+                long[] w = scratch.chunk;
+                int qt = one + 2 * k + 1;
+                w[one + 2 * k] = 1L;
+                knuth(w, qt, w, qt + k + 2, w, one, 2 * k + 1, d, dOff, k);
+                System.arraycopy(w, qt, x, xOff, k + 1);
+                return;
+            }
+            int h = (k + 1) / 2;
+            // Scratch layout: X0, then p = d * X0, then the correction term.
+            int x0 = scratch.alloc(k + 1 + 2 * k + 1 + 3 * k + 1);
+            long[] w = scratch.chunk;
+            int p = x0 + k + 1;
+            int correction = p + 2 * k + 1;
+            reciprocal(w, x0 + k - h, d, dOff + k - h, h);
+
+            // p = d * X0, which is close to B^2k.
+            UIntMultiplier.mul(w, p, d, dOff, k, w, x0, k + 1);
+            if (w[p + 2 * k] == 0) {
+                // X0 is too small: the error B^2k - p is the 2's complement of the low 2k limbs.
+                negateLow(w, p, 2 * k);
+                int e = UIntLimbs.significant(w, p, 2 * k);
+                UIntMultiplier.mul(w, correction, w, x0, k + 1, w, p, e);
+                UIntLimbs.add(x, xOff, w, x0, k + 1, w, correction + 2 * k, Math.max(0, e + 1 - k));
+            } else {
+                // X0 is too large (or exact): the error is p - B^2k, and the step is rounded up.
+                w[p + 2 * k] = 0L;
+                int e = UIntLimbs.significant(w, p, 2 * k);
+                UIntMultiplier.mul(w, correction, w, x0, k + 1, w, p, e);
+                long up = UIntLimbs.significant(w, correction, 2 * k) != 0 ? 1L : 0L;
+                UIntLimbs.sub(x, xOff, w, x0, k + 1, w, correction + 2 * k, Math.max(0, e + 1 - k));
+                UIntLimbs.decrement(x, xOff, x, xOff, k + 1, up);
+            }
+
+            // p = d * X, stepped down by d while it is above B^2k, then B^2k - p stepped down while it holds d.
+            UIntMultiplier.mul(w, p, d, dOff, k, x, xOff, k + 1);
+            while (w[p + 2 * k] != 0 && (w[p + 2 * k] != 1 || UIntLimbs.significant(w, p, 2 * k) != 0)) {
+                UIntLimbs.sub(w, p, w, p, 2 * k + 1, d, dOff, k);
+                UIntLimbs.decrement(x, xOff, x, xOff, k + 1, 1L);
+            }
+            if (w[p + 2 * k] == 0) {
+                negateLow(w, p, 2 * k);
+                while (UIntLimbs.compare(w, p, 2 * k, d, dOff, k) >= 0) {
+                    UIntLimbs.sub(w, p, w, p, 2 * k, d, dOff, k);
+                    UIntLimbs.increment(x, xOff, x, xOff, k + 1, 1L);
+                }
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Replaces the n limbs of p at pOff with their 2's complement, B^n minus their value.
+     */
+    private static void negateLow(long[] p, int pOff, int n) {
+        for (int i = 0; i < n; i++) {
+            p[pOff + i] = ~p[pOff + i];
+        }
+        UIntLimbs.increment(p, pOff, p, pOff, n, 1L);
+    }
+}
@@ -0,0 +1,493 @@
+/**
+ * <h1>UIntLimbs</h1>
+ * Low-level helpers that work directly on little-endian arrays of 64-bit limbs.
+ * Every method takes an array and an offset for each operand, so the same kernels can run on the limbs
+ *   of a UInt or on any region of a larger temporary buffer.
+ * All values are treated as unsigned, and limb counts are passed explicitly rather than read from the arrays.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntLimbs {
+
+    // The Vector API kernels in UIntVectorOps, or null when the bitwise kernels keep to their scalar loops.
+    //   UIntVectorOps is compiled on its own with the jdk.incubator.vector module, so it is found by name, and
+    //   only when that module is present. The uint.vector system property turns it off.
+    static final BitwiseKernels VECTOR_OPS = vectorOps();
+
+    // Whether the bitwise kernels hand runs of VECTOR_MIN_LIMBS or more to VECTOR_OPS.
+    static final boolean VECTORIZED = VECTOR_OPS != null;
+
+    // Below this many limbs the scalar loops are used even when the Vector API is available.
+    static final int VECTOR_MIN_LIMBS = 16;
+
+    private UIntLimbs() {
+    }
+
+    /**
+     * Bulk bitwise kernels on runs of limbs, with the same contracts as the scalar ones below.
+     */
+    interface BitwiseKernels {
+
+        void and(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n);
+
+        void or(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n);
+
+        void xor(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n);
+
+        void andNot(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n);
+
+        void not(long[] r, int rOff, long[] a, int aOff, int n);
+    }
+
+    /**
+     * Loads UIntVectorOps if it can be used, returning null when it is turned off, when the jdk.incubator.vector
+     *   module is missing or when the class was not built.
+     */
+    private static BitwiseKernels vectorOps() {
+        if (!Boolean.parseBoolean(System.getProperty("uint.vector", "true"))
+                || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            return (BitwiseKernels) Class.forName("UIntVectorOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Adds two equal-length runs of limbs with an incoming carry, storing the sum in r.
+     * The result may overlap either operand as long as it starts at the same offset.
+     *
+     * @param r The array receiving the sum.
+     * @param rOff The offset of the sum in r.
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param n The number of limbs to add.
+     * @param carry The incoming carry, 0 or 1.
+     * @return The carry out of the most-significant limb, 0 or 1.
+     */
+    static long addN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long carry) {
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long y = b[bOff + i];
+            long s = x + y + carry;
+            // The sum overflowed exactly when both top bits were set, or when either was set and the sum's is clear.
+            // This is the same unsigned overflow test as Long.compareUnsigned(s, x) < 0, but it also covers the carry-in.
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            r[rOff + i] = s;
+        }
+        return carry;
+    }
+
+    /**
+     * Adds a run of bLen limbs into a run of aLen limbs, storing the aLen-limb sum in r.
+     * The shorter operand is implicitly padded with zeros, so aLen must be at least bLen.
+     *
+     * @param r The array receiving the sum.
+     * @param rOff The offset of the sum in r.
+     * @param a The array holding the longer operand.
+     * @param aOff The offset of the longer operand in a.
+     * @param aLen The number of limbs in the longer operand.
+     * @param b The array holding the shorter operand.
+     * @param bOff The offset of the shorter operand in b.
+     * @param bLen The number of limbs in the shorter operand.
+     * @return The carry out of the most-significant limb, 0 or 1.
+     */
+    static long add(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        long carry = addN(r, rOff, a, aOff, b, bOff, bLen, 0L);
+        return increment(r, rOff + bLen, a, aOff + bLen, aLen - bLen, carry);
+    }
+
+    /**
+     * Adds a single carry into a run of limbs, storing the result in r.
+     * Once the carry is absorbed the rest of the run is only copied (or left alone when r and a are the same run).
+     *
+     * @param r The array receiving the result.
+     * @param rOff The offset of the result in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param carry The carry to add, 0 or 1.
+     * @return The carry out of the most-significant limb, 0 or 1.
+     */
+    static long increment(long[] r, int rOff, long[] a, int aOff, int n, long carry) {
+        int i = 0;
+        for (; i < n && carry != 0; i++) {
+            long s = a[aOff + i] + 1;
+            r[rOff + i] = s;
+            carry = s == 0 ? 1L : 0L;
+        }
+        if (r != a || rOff != aOff) {
+            System.arraycopy(a, aOff + i, r, rOff + i, n - i);
+        }
+        return carry;
+    }
+
+    /**
+     * Subtracts two equal-length runs of limbs with an incoming borrow, storing the difference in r.
+     *
+     * @param r The array receiving the difference.
+     * @param rOff The offset of the difference in r.
+     * @param a The array holding the minuend.
+     * @param aOff The offset of the minuend in a.
+     * @param b The array holding the subtrahend.
+     * @param bOff The offset of the subtrahend in b.
+     * @param n The number of limbs to subtract.
+     * @param borrow The incoming borrow, 0 or 1.
+     * @return The borrow out of the most-significant limb, 0 or 1.
+     */
+    static long subN(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n, long borrow) {
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long y = b[bOff + i];
+            long d = x - y - borrow;
+            // A borrow is needed when y's top bit beats x's, or when they match and the difference wrapped.
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            r[rOff + i] = d;
+        }
+        return borrow;
+    }
+
+    /**
+     * Subtracts a run of bLen limbs from a run of aLen limbs, storing the aLen-limb difference in r.
+     * aLen must be at least bLen.
+     *
+     * @param r The array receiving the difference.
+     * @param rOff The offset of the difference in r.
+     * @param a The array holding the minuend.
+     * @param aOff The offset of the minuend in a.
+     * @param aLen The number of limbs in the minuend.
+     * @param b The array holding the subtrahend.
+     * @param bOff The offset of the subtrahend in b.
+     * @param bLen The number of limbs in the subtrahend.
+     * @return The borrow out of the most-significant limb, 0 or 1.
+     */
+    static long sub(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        long borrow = subN(r, rOff, a, aOff, b, bOff, bLen, 0L);
+        return decrement(r, rOff + bLen, a, aOff + bLen, aLen - bLen, borrow);
+    }
+
+    /**
+     * Subtracts a single borrow from a run of limbs, storing the result in r.
+     *
+     * @param r The array receiving the result.
+     * @param rOff The offset of the result in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param borrow The borrow to subtract, 0 or 1.
+     * @return The borrow out of the most-significant limb, 0 or 1.
+     */
+    static long decrement(long[] r, int rOff, long[] a, int aOff, int n, long borrow) {
+        int i = 0;
+        for (; i < n && borrow != 0; i++) {
+            long x = a[aOff + i];
+            r[rOff + i] = x - 1;
+            borrow = x == 0 ? 1L : 0L;
+        }
+        if (r != a || rOff != aOff) {
+            System.arraycopy(a, aOff + i, r, rOff + i, n - i);
+        }
+        return borrow;
+    }
+
+    /**
+     * Returns the number of limbs left in a run once its leading zero limbs are dropped.
+     *
+     * @param a The array holding the run.
+     * @param aOff The offset of the run in a.
+     * @param aLen The number of limbs in the run.
+     * @return The number of significant limbs, 0 if the whole run is zero.
+     */
+    static int significant(long[] a, int aOff, int aLen) {
+        while (aLen > 0 && a[aOff + aLen - 1] == 0) {
+            aLen--;
+        }
+        return aLen;
+    }
+
+    /**
+     * Compares two runs of limbs by value, ignoring any leading zero limbs.
+     *
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param aLen The number of limbs in the first operand.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param bLen The number of limbs in the second operand.
+     * @return A negative number, zero, or a positive number as a is less than, equal to, or greater than b.
+     */
+    static int compare(long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        aLen = significant(a, aOff, aLen);
+        bLen = significant(b, bOff, bLen);
+        if (aLen != bLen) {
+            return aLen < bLen ? -1 : 1;
+        }
+        for (int i = aLen - 1; i >= 0; i--) {
+            long x = a[aOff + i];
+            long y = b[bOff + i];
+            if (x != y) {
+                return Long.compareUnsigned(x, y);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of two limbs.
+     * Math.multiplyHigh treats its arguments as signed, so each negative argument is corrected by adding the other.
+     *
+     * @param x The first limb.
+     * @param y The second limb.
+     * @return The high limb of x * y.
+     */
+    static long mulHigh(long x, long y) {
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * Multiplies a run of limbs by a single limb, storing the n-limb product in r.
+     *
+     * @param r The array receiving the product.
+     * @param rOff The offset of the product in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param y The limb to multiply by.
+     * @return The high limb of the product, which does not fit in the n limbs of r.
+     */
+    static long mul1(long[] r, int rOff, long[] a, int aOff, int n, long y) {
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long lo = x * y + carry;
+            carry = mulHigh(x, y) + (Long.compareUnsigned(lo, carry) < 0 ? 1L : 0L);
+            r[rOff + i] = lo;
+        }
+        return carry;
+    }
+
+    /**
+     * Multiplies a run of limbs by a single limb and adds the product into r.
+     *
+     * @param r The array holding the accumulator.
+     * @param rOff The offset of the accumulator in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param y The limb to multiply by.
+     * @return The high limb of the result, which does not fit in the n limbs of r.
+     */
+    static long addMul1(long[] r, int rOff, long[] a, int aOff, int n, long y) {
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long lo = x * y + carry;
+            long hi = mulHigh(x, y) + (Long.compareUnsigned(lo, carry) < 0 ? 1L : 0L);
+            long t = r[rOff + i];
+            lo += t;
+            carry = hi + (Long.compareUnsigned(lo, t) < 0 ? 1L : 0L);
+            r[rOff + i] = lo;
+        }
+        return carry;
+    }
+
+    /**
+     * Shifts a run of limbs left by s bits, storing the n-limb result in r.
+     * The result may overlap the operand as long as it starts at the same offset or higher.
+     *
+     * @param r The array receiving the result.
+     * @param rOff The offset of the result in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param s The number of bits to shift by, from 0 to 63.
+     * @return The bits shifted out of the most-significant limb, in the low s bits of the result.
+     */
+    static long shiftLeft(long[] r, int rOff, long[] a, int aOff, int n, int s) {
+        if (s == 0) {
+            System.arraycopy(a, aOff, r, rOff, n);
+            return 0L;
+        }
+        long out = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            long x = a[aOff + i];
+            if (i == n - 1) {
+                out = x >>> (64 - s);
+            }
+            r[rOff + i] = (x << s) | (i > 0 ? a[aOff + i - 1] >>> (64 - s) : 0L);
+        }
+        return out;
+    }
+
+    /**
+     * Shifts a run of limbs right by s bits, storing the n-limb result in r.
+     * The result may overlap the operand as long as it starts at the same offset or lower.
+     *
+     * @param r The array receiving the result.
+     * @param rOff The offset of the result in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param s The number of bits to shift by, from 0 to 63.
+     */
+    static void shiftRight(long[] r, int rOff, long[] a, int aOff, int n, int s) {
+        if (s == 0) {
+            System.arraycopy(a, aOff, r, rOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = (a[aOff + i] >>> s) | (i < n - 1 ? a[aOff + i + 1] << (64 - s) : 0L);
+        }
+    }
+
+    /**
+     * Multiplies a run of limbs by a single limb and subtracts the product from r.
+     *
+     * @param r The array holding the minuend.
+     * @param rOff The offset of the minuend in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     * @param y The limb to multiply by.
+     * @return The amount still to be borrowed from the limb above the n limbs of r.
+     */
+    static long subMul1(long[] r, int rOff, long[] a, int aOff, int n, long y) {
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long lo = x * y + carry;
+            carry = mulHigh(x, y) + (Long.compareUnsigned(lo, carry) < 0 ? 1L : 0L);
+            long t = r[rOff + i];
+            long d = t - lo;
+            carry += Long.compareUnsigned(t, lo) < 0 ? 1L : 0L;
+            r[rOff + i] = d;
+        }
+        return carry;
+    }
+
+    /**
+     * Divides the unsigned 128-bit value hi:lo by d, where hi must be less than d so the quotient fits in a limb.
+     * Java has no 128-by-64-bit division, so this follows the classic schoolbook method on 32-bit halves
+     *   (Hacker's Delight, divlu): normalize d, then produce the quotient one 32-bit digit at a time,
+     *   correcting each estimated digit at most twice.
+     *
+     * @param hi The high limb of the dividend.
+     * @param lo The low limb of the dividend.
+     * @param d The divisor.
+     * @param rem An array whose first element receives the remainder, or null if it is not needed.
+     * @return The quotient.
+     */
+    static long divWord(long hi, long lo, long d, long[] rem) {
+        int s = Long.numberOfLeadingZeros(d);
+        d <<= s;
+        long dHi = d >>> 32;
+        long dLo = d & 0xFFFFFFFFL;
+        long un32 = (hi << s) | ((lo >>> (64 - s)) & (-s >> 63));
+        long un10 = lo << s;
+        long un1 = un10 >>> 32;
+        long un0 = un10 & 0xFFFFFFFFL;
+
+        long q1 = Long.divideUnsigned(un32, dHi);
+        long rhat = un32 - q1 * dHi;
+        while (q1 >>> 32 != 0 || Long.compareUnsigned(q1 * dLo, (rhat << 32) | un1) > 0) {
+            q1--;
+            rhat += dHi;
+            if (rhat >>> 32 != 0) {
+                break;
+            }
+        }
+        long un21 = ((un32 << 32) | un1) - q1 * d;
+
+        long q0 = Long.divideUnsigned(un21, dHi);
+        rhat = un21 - q0 * dHi;
+        while (q0 >>> 32 != 0 || Long.compareUnsigned(q0 * dLo, (rhat << 32) | un0) > 0) {
+            q0--;
+            rhat += dHi;
+            if (rhat >>> 32 != 0) {
+                break;
+            }
+        }
+        if (rem != null) {
+            rem[0] = (((un21 << 32) | un0) - q0 * d) >>> s;
+        }
+        return (q1 << 32) | q0;
+    }
+
+    /**
+     * Stores a AND b in r, for n limbs. r may be the same run as a or b.
+     *
+     * @param r The array receiving the result.
+     * @param rOff The offset of the result in r.
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param n The number of limbs.
+     */
+    static void and(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        if (VECTORIZED && n >= VECTOR_MIN_LIMBS) {
+            VECTOR_OPS.and(r, rOff, a, aOff, b, bOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = a[aOff + i] & b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a OR b in r, for n limbs. r may be the same run as a or b.
+     */
+    static void or(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        if (VECTORIZED && n >= VECTOR_MIN_LIMBS) {
+            VECTOR_OPS.or(r, rOff, a, aOff, b, bOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = a[aOff + i] | b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a XOR b in r, for n limbs. r may be the same run as a or b.
+     */
+    static void xor(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        if (VECTORIZED && n >= VECTOR_MIN_LIMBS) {
+            VECTOR_OPS.xor(r, rOff, a, aOff, b, bOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = a[aOff + i] ^ b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a AND NOT b in r, for n limbs. r may be the same run as a or b.
+     */
+    static void andNot(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        if (VECTORIZED && n >= VECTOR_MIN_LIMBS) {
+            VECTOR_OPS.andNot(r, rOff, a, aOff, b, bOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = a[aOff + i] & ~b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores NOT a in r, for n limbs. r may be the same run as a.
+     */
+    static void not(long[] r, int rOff, long[] a, int aOff, int n) {
+        if (VECTORIZED && n >= VECTOR_MIN_LIMBS) {
+            VECTOR_OPS.not(r, rOff, a, aOff, n);
+            return;
+        }
+        for (int i = 0; i < n; i++) {
+            r[rOff + i] = ~a[aOff + i];
+        }
+    }
+}
@@ -0,0 +1,192 @@
+import java.util.Arrays;
+
+/**
+ * <h1>UIntModPow</h1>
+ * The modular exponentiation engine behind UInt.modPow.
+ * The exponent is scanned from the top with a sliding window: runs of zero bits cost one squaring each, and every
+ *   window of up to k bits that starts and ends with a 1 costs k squarings and a single multiplication by an odd
+ *   power of the base. The odd powers base^1, base^3, .. base^(2^k - 1) are computed once before the scan.
+ *   The window size grows with the exponent, trading a larger table for fewer multiplications.
+ * Odd moduli are reduced with a UIntMontgomery context, and even ones with a UIntBarrett context.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntModPow {
+
+    // The largest exponent bit length that uses each window size, starting from a window of 1 bit.
+    private static final int[] WINDOW_LIMITS = {7, 25, 81, 241, 673, 1793};
+
+    private UIntModPow() {
+    }
+
+    /**
+     * Computes base^exponent mod modulus.
+     *
+     * @param base The base.
+     * @param exponent The exponent.
+     * @param modulus The modulus.
+     * @return A new UInt holding the result, with the length of the modulus.
+     * @throws ArithmeticException If the modulus is 0.
+     */
+    static UInt modPow(UInt base, UInt exponent, UInt modulus) {
+        long[] m = modulus.limbs();
+        int n = UIntLimbs.significant(m, 0, UInt.limbs(modulus.length));
+        if (n == 0) {
+            throw new ArithmeticException("UInt divide by zero");
+        }
+        long[] result = new long[Math.max(n, UInt.limbs(modulus.length))];
+        if (n == 1 && m[0] == 1L) {
+            return new UInt(result, modulus.length);
+        }
+        long[] e = exponent.limbs();
+        int eLimbs = UIntLimbs.significant(e, 0, UInt.limbs(exponent.length));
+        if (eLimbs == 0) {
+            result[0] = 1L;
+            return new UInt(result, modulus.length);
+        }
+        int eBits = 64 * eLimbs - Long.numberOfLeadingZeros(e[eLimbs - 1]);
+
+        Reducer reducer = (m[0] & 1L) != 0 ? new MontgomeryReducer(modulus) : new BarrettReducer(modulus);
+        int k = windowSize(eBits);
+
+        // table[i] holds base^(2i + 1), in whatever form the reducer works in.
+        long[][] table = new long[1 << (k - 1)][];
+        table[0] = reducer.enter(base);
+        if (table.length > 1) {
+            long[] square = new long[n];
+            reducer.mulMod(square, table[0], table[0]);
+            for (int i = 1; i < table.length; i++) {
+                table[i] = new long[n];
+                reducer.mulMod(table[i], table[i - 1], square);
+            }
+        }
+
+        long[] acc = null;
+        int i = eBits - 1;
+        while (i >= 0) {
+            if (!testBit(e, i)) {
+                reducer.mulMod(acc, acc, acc);
+                i--;
+                continue;
+            }
+            // The window runs from bit i down to the lowest set bit within k bits, so its value is always odd.
+            int j = Math.max(i - k + 1, 0);
+            while (!testBit(e, j)) {
+                j++;
+            }
+            int window = 0;
+            for (int b = i; b >= j; b--) {
+                window = window << 1 | (testBit(e, b) ? 1 : 0);
+            }
+            if (acc == null) {
+                // The first window is taken straight from the table, which saves squaring a 1.
+                acc = table[window >>> 1].clone();
+            } else {
+                for (int b = i; b >= j; b--) {
+                    reducer.mulMod(acc, acc, acc);
+                }
+                reducer.mulMod(acc, acc, table[window >>> 1]);
+            }
+            i = j - 1;
+        }
+        reducer.leave(result, acc);
+        return new UInt(result, modulus.length);
+    }
+
+    /**
+     * Returns the window size for an exponent of the given bit length.
+     *
+     * @param bits The number of bits in the exponent.
+     * @return The number of exponent bits handled per table lookup.
+     */
+    static int windowSize(int bits) {
+        int k = 1;
+        while (k <= WINDOW_LIMITS.length && bits > WINDOW_LIMITS[k - 1]) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * Returns whether the given bit of a limb array is set.
+     */
+    private static boolean testBit(long[] bits, int i) {
+        return (bits[i >>> 6] >>> i & 1L) != 0;
+    }
+
+    /**
+     * A way of multiplying n-limb residues modulo a fixed modulus, in some internal form.
+     */
+    private interface Reducer {
+
+        /**
+         * Returns x reduced below the modulus and converted to the internal form, in at least n limbs.
+         */
+        long[] enter(UInt x);
+
+        /**
+         * Stores the product of a and b, in the internal form, in r. r may be the same array as a or b.
+         */
+        void mulMod(long[] r, long[] a, long[] b);
+
+        /**
+         * Converts x out of the internal form into the low n limbs of r.
+         */
+        void leave(long[] r, long[] x);
+    }
+
+    /**
+     * Multiplies in Montgomery form, so no product ever needs a division.
+     */
+    private static final class MontgomeryReducer implements Reducer {
+        private final UIntMontgomery context;
+        private final long[] t;
+
+        MontgomeryReducer(UInt modulus) {
+            this.context = new UIntMontgomery(modulus);
+            this.t = new long[2 * context.limbCount() + 1];
+        }
+
+        public long[] enter(UInt x) {
+            return context.toMontgomery(x).limbs();
+        }
+
+        public void mulMod(long[] r, long[] a, long[] b) {
+            context.mulMod(r, a, b, t);
+        }
+
+        public void leave(long[] r, long[] x) {
+            int n = context.limbCount();
+            System.arraycopy(x, 0, t, 0, n);
+            Arrays.fill(t, n, t.length, 0L);
+            context.redc(r, t);
+        }
+    }
+
+    /**
+     * Multiplies normally and reduces every product with a UIntBarrett context,
+     *   for the even moduli Montgomery's method cannot handle.
+     */
+    private static final class BarrettReducer implements Reducer {
+        private final UIntBarrett context;
+        private final long[] t;
+
+        BarrettReducer(UInt modulus) {
+            this.context = new UIntBarrett(modulus);
+            this.t = new long[context.scratchSize()];
+        }
+
+        public long[] enter(UInt x) {
+            return context.reduce(x).limbs();
+        }
+
+        public void mulMod(long[] r, long[] a, long[] b) {
+            context.mulMod(r, a, b, t);
+        }
+
+        public void leave(long[] r, long[] x) {
+            System.arraycopy(x, 0, r, 0, context.limbCount());
+        }
+    }
+}
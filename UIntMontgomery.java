@@ -0,0 +1,206 @@
+import java.util.Arrays;
+
+/**
+ * <h1>UIntMontgomery</h1>
+ * A reusable context for modular multiplication against a fixed odd modulus m, using Montgomery's method.
+ * With R = 2^(64n) for an n-limb modulus, values are kept in Montgomery form xR mod m. The product of two
+ *   such values is brought back into form by REDC, which divides by R using only multiplications,
+ *   additions and limb shifts, so a chain of mulMod calls never needs a trial division.
+ * Both -m^-1 mod 2^64 and R^2 mod m are computed once when the context is built.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public class UIntMontgomery {
+
+    // The limbs of the modulus, and how many of them there are.
+    private final long[] m;
+    private final int n;
+
+    // The bit length given to every UInt this context returns (the length of the modulus UInt).
+    private final int length;
+
+    // -m^-1 mod 2^64, the factor that makes each REDC step clear one limb.
+    private final long mInv;
+
+    // R^2 mod m, used to bring values into Montgomery form.
+    private final long[] r2;
+
+    /**
+     * Constructs a Montgomery context for the given modulus.
+     *
+     * @param modulus The modulus, which must be odd.
+     * @throws IllegalArgumentException If the modulus is even (including 0).
+     */
+    public UIntMontgomery(UInt modulus) {
+        long[] mb = modulus.limbs();
+        this.n = UIntLimbs.significant(mb, 0, UInt.limbs(modulus.length));
+        if (n == 0 || (mb[0] & 1L) == 0) {
+            throw new IllegalArgumentException("Montgomery reduction needs an odd modulus");
+        }
+        this.m = Arrays.copyOf(mb, n);
+        this.length = modulus.length;
+
+        // Newton's iteration for the inverse mod 2^64: an odd m0 is its own inverse mod 8,
+        //   and every step doubles the number of correct bits (3, 6, 12, 24, 48, 96).
+        long m0 = m[0];
+        long inv = m0;
+        for (int i = 0; i < 5; i++) {
+            inv *= 2 - m0 * inv;
+        }
+        this.mInv = -inv;
+
+        // R^2 mod m is the one place a division is needed, and it only happens here.
+        long[] r2n = new long[2 * n + 1];
+        r2n[2 * n] = 1L;
+        this.r2 = new long[n];
+        UIntDivider.divRem(null, 0, r2, 0, r2n, 0, 2 * n + 1, m, 0, n);
+    }
+
+    /**
+     * Returns a copy of the modulus of this context.
+     *
+     * @return The modulus.
+     */
+    public UInt modulus() {
+        return result(Arrays.copyOf(m, n));
+    }
+
+    /**
+     * Converts a value into Montgomery form, xR mod m.
+     * Values that are not already below the modulus are reduced first.
+     *
+     * @param x The value to convert.
+     * @return A new UInt holding x in Montgomery form.
+     */
+    public UInt toMontgomery(UInt x) {
+        long[] r = new long[n];
+        toMontgomery(r, reduced(x));
+        return result(r);
+    }
+
+    /**
+     * Converts a value out of Montgomery form, x R^-1 mod m.
+     *
+     * @param x The value in Montgomery form.
+     * @return A new UInt holding the ordinary value.
+     */
+    public UInt fromMontgomery(UInt x) {
+        long[] t = new long[2 * n + 1];
+        System.arraycopy(reduced(x), 0, t, 0, n);
+        long[] r = new long[n];
+        redc(r, t);
+        return result(r);
+    }
+
+    /**
+     * Returns 1 in Montgomery form, R mod m.
+     *
+     * @return A new UInt holding R mod m.
+     */
+    public UInt one() {
+        long[] r = new long[n];
+        one(r);
+        return result(r);
+    }
+
+    /**
+     * Multiplies two values in Montgomery form, returning abR^-1 mod m, which is the Montgomery form of their product.
+     *
+     * @param a The first value, in Montgomery form.
+     * @param b The second value, in Montgomery form.
+     * @return A new UInt holding the product in Montgomery form.
+     */
+    public UInt mulMod(UInt a, UInt b) {
+        long[] r = new long[n];
+        mulMod(r, reduced(a), reduced(b), new long[2 * n + 1]);
+        return result(r);
+    }
+
+    /**
+     * Squares a value in Montgomery form, returning a^2 R^-1 mod m.
+     *
+     * @param a The value, in Montgomery form.
+     * @return A new UInt holding the square in Montgomery form.
+     */
+    public UInt squareMod(UInt a) {
+        long[] x = reduced(a);
+        long[] r = new long[n];
+        mulMod(r, x, x, new long[2 * n + 1]);
+        return result(r);
+    }
+
+    /**
+     * Returns the number of limbs in the modulus, which is the size of every value handled by this context.
+     */
+    int limbCount() {
+        return n;
+    }
+
+    /**
+     * Multiplies two n-limb values in Montgomery form into r, using t (2n + 1 limbs) as scratch.
+     * r may be the same array as a or b.
+     */
+    void mulMod(long[] r, long[] a, long[] b, long[] t) {
+        UIntMultiplier.mul(t, 0, a, 0, n, b, 0, n);
+        t[2 * n] = 0L;
+        redc(r, t);
+    }
+
+    /**
+     * Stores the Montgomery form of a reduced n-limb value in r.
+     */
+    void toMontgomery(long[] r, long[] x) {
+        mulMod(r, x, r2, new long[2 * n + 1]);
+    }
+
+    /**
+     * Stores R mod m, the Montgomery form of 1, in r.
+     */
+    void one(long[] r) {
+        long[] x = new long[n];
+        x[0] = 1L;
+        toMontgomery(r, x);
+    }
+
+    /**
+     * Montgomery reduction: given t < mR in 2n + 1 limbs (the top one zero), stores t R^-1 mod m in r.
+     * Each step adds the multiple of m that clears the lowest remaining limb of t, so after n steps
+     *   the low n limbs are zero and the top half is t R^-1, give or take one extra m.
+     */
+    void redc(long[] r, long[] t) {
+        for (int i = 0; i < n; i++) {
+            long u = t[i] * mInv;
+            long carry = UIntLimbs.addMul1(t, i, m, 0, n, u);
+            // Fold the row's high limb into limb i + n and let any carry ripple up to the top limb.
+            long sum = t[i + n] + carry;
+            t[i + n] = sum;
+            UIntLimbs.increment(t, i + n + 1, t, i + n + 1, n - i, Long.compareUnsigned(sum, carry) < 0 ? 1L : 0L);
+        }
+        if (t[2 * n] != 0 || UIntLimbs.compare(t, n, n, m, 0, n) >= 0) {
+            UIntLimbs.subN(t, n, t, n, m, 0, n, 0L);
+        }
+        System.arraycopy(t, n, r, 0, n);
+    }
+
+    /**
+     * Returns the limbs of x reduced below the modulus, padded or trimmed to n limbs.
+     */
+    private long[] reduced(UInt x) {
+        long[] xb = x.limbs();
+        int xn = UIntLimbs.significant(xb, 0, UInt.limbs(x.length));
+        if (UIntLimbs.compare(xb, 0, xn, m, 0, n) < 0) {
+            return Arrays.copyOf(xb, n);
+        }
+        long[] r = new long[n];
+        UIntDivider.divRem(null, 0, r, 0, xb, 0, xn, m, 0, n);
+        return r;
+    }
+
+    /**
+     * Wraps n limbs as a UInt with the length of the modulus.
+     */
+    private UInt result(long[] r) {
+        return new UInt(r.length < UInt.limbs(length) ? Arrays.copyOf(r, UInt.limbs(length)) : r, length);
+    }
+}
@@ -0,0 +1,384 @@
+import java.util.Arrays;
+
+/**
+ * <h1>UIntMultiplier</h1>
+ * The multiplication engine behind UInt.mul.
+ * Small operands are multiplied with a word-level schoolbook loop, and once both operands reach
+ *   KARATSUBA_THRESHOLD limbs the work is split recursively using Karatsuba's algorithm.
+ * Past TOOM_COOK_THRESHOLD limbs, balanced operands are split three ways using Toom-Cook 3,
+ *   and past NTT_THRESHOLD limbs they are handed to the number-theoretic transform in UIntNtt.
+ * Squaring a run of limbs has its own entry point using the same tiers, and every tier reuses the
+ *   evaluations and products that coincide when both operands are the same.
+ * The crossovers can be tuned with the uint.karatsubaThreshold, uint.toomCookThreshold and
+ *   uint.nttThreshold system properties (in limbs).
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntMultiplier {
+
+    // The number of limbs both operands need before Karatsuba beats the schoolbook loop.
+    static final int KARATSUBA_THRESHOLD = Math.max(4, Integer.getInteger("uint.karatsubaThreshold", 32));
+
+    // The number of limbs both operands need before Toom-Cook 3 beats Karatsuba.
+    static final int TOOM_COOK_THRESHOLD = Math.max(KARATSUBA_THRESHOLD, Integer.getInteger("uint.toomCookThreshold", 128));
+
+    // The number of limbs both operands need before the NTT multiply beats Toom-Cook 3.
+    static final int NTT_THRESHOLD = Math.max(TOOM_COOK_THRESHOLD, Integer.getInteger("uint.nttThreshold", 3072));
+
+    // The inverse of 3 modulo 2^64, used to divide by 3 exactly without a division instruction.
+    private static final long INVERSE_OF_3 = 0xAAAAAAAAAAAAAAABL;
+
+    private UIntMultiplier() {
+    }
+
+    /**
+     * Multiplies two runs of limbs, storing the (aLen + bLen)-limb product in r.
+     * The product must not overlap either operand.
+     *
+     * @param r The array receiving the product.
+     * @param rOff The offset of the product in r.
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param aLen The number of limbs in the first operand.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param bLen The number of limbs in the second operand.
+     */
+    static void mul(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        if (a == b && aOff == bOff && aLen == bLen) {
+            square(r, rOff, a, aOff, aLen);
+            return;
+        }
+        // Keep the longer operand in a, so only the shorter length decides which algorithm to use.
+        if (aLen < bLen) {
+            long[] t = a; a = b; b = t;
+            int o = aOff; aOff = bOff; bOff = o;
+            int l = aLen; aLen = bLen; bLen = l;
+        }
+        if (bLen < KARATSUBA_THRESHOLD) {
+            mulBasecase(r, rOff, a, aOff, aLen, b, bOff, bLen);
+        } else if (aLen >= 2 * bLen) {
+            mulUnbalanced(r, rOff, a, aOff, aLen, b, bOff, bLen);
+        } else if (bLen >= NTT_THRESHOLD && aLen + bLen <= UIntNtt.MAX_PRODUCT_LIMBS) {
+            UIntNtt.mul(r, rOff, a, aOff, aLen, b, bOff, bLen);
+        } else if (bLen >= TOOM_COOK_THRESHOLD && bLen > 2 * ((aLen + 2) / 3)) {
+            toomCook3(r, rOff, a, aOff, aLen, b, bOff, bLen);
+        } else {
+            karatsuba(r, rOff, a, aOff, aLen, b, bOff, bLen);
+        }
+    }
+
+    /**
+     * Squares a run of limbs, storing the 2n-limb result in r.
+     * The result must not overlap the operand.
+     *
+     * @param r The array receiving the square.
+     * @param rOff The offset of the square in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     */
+    static void square(long[] r, int rOff, long[] a, int aOff, int n) {
+        if (n < KARATSUBA_THRESHOLD) {
+            squareBasecase(r, rOff, a, aOff, n);
+        } else if (n >= NTT_THRESHOLD && 2 * n <= UIntNtt.MAX_PRODUCT_LIMBS) {
+            UIntNtt.square(r, rOff, a, aOff, n);
+        } else if (n >= TOOM_COOK_THRESHOLD && n > 2 * ((n + 2) / 3)) {
+            toomCook3(r, rOff, a, aOff, n, a, aOff, n);
+        } else {
+            karatsuba(r, rOff, a, aOff, n, a, aOff, n);
+        }
+    }
+
+    /**
+     * Squares a run of limbs with a symmetric schoolbook method.
+     * Every cross product a[i]*a[j] with i != j appears twice in the square, so each one is computed once,
+     *   the sum of them is doubled with a single shift, and then the squares on the diagonal are added in.
+     * That skips nearly half of the partial products of the general schoolbook multiply.
+     *
+     * @param r The array receiving the 2n-limb square.
+     * @param rOff The offset of the square in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     */
+    static void squareBasecase(long[] r, int rOff, long[] a, int aOff, int n) {
+        Arrays.fill(r, rOff, rOff + 2 * n, 0L);
+        // Row i adds a[i] times every higher limb, landing 2i+1 limbs up. No earlier row has reached
+        //   limb i+n yet, so the row's carry can be stored there directly.
+        for (int i = 0; i < n - 1; i++) {
+            r[rOff + i + n] = UIntLimbs.addMul1(r, rOff + 2 * i + 1, a, aOff + i + 1, n - i - 1, a[aOff + i]);
+        }
+        UIntLimbs.shiftLeft(r, rOff, r, rOff, 2 * n, 1);
+        long carry = 0;
+        for (int i = 0; i < n; i++) {
+            long x = a[aOff + i];
+            long lo = x * x;
+            long hi = UIntLimbs.mulHigh(x, x);
+            int j = rOff + 2 * i;
+            long t = r[j];
+            long s = t + lo + carry;
+            carry = ((t & lo) | ((t | lo) & ~s)) >>> 63;
+            r[j] = s;
+            t = r[j + 1];
+            s = t + hi + carry;
+            carry = ((t & hi) | ((t | hi) & ~s)) >>> 63;
+            r[j + 1] = s;
+        }
+    }
+
+    /**
+     * Multiplies two runs of limbs with the schoolbook method, one row of partial products per limb of b.
+     * This plays the role Booth's algorithm plays for a bit-serial multiplier: since every limb is unsigned,
+     *   no recoding is needed and each row is a single multiply-accumulate pass.
+     *
+     * @param r The array receiving the (aLen + bLen)-limb product.
+     * @param rOff The offset of the product in r.
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param aLen The number of limbs in the first operand.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param bLen The number of limbs in the second operand.
+     */
+    static void mulBasecase(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        if (aLen == 0 || bLen == 0) {
+            Arrays.fill(r, rOff, rOff + aLen + bLen, 0L);
+            return;
+        }
+        r[rOff + aLen] = UIntLimbs.mul1(r, rOff, a, aOff, aLen, b[bOff]);
+        for (int j = 1; j < bLen; j++) {
+            r[rOff + aLen + j] = UIntLimbs.addMul1(r, rOff + j, a, aOff, aLen, b[bOff + j]);
+        }
+    }
+
+    /**
+     * Multiplies a long operand by one at most half its length by cutting the long one into
+     *   pieces the size of the short one, so that each piece can still use Karatsuba.
+     */
+    private static void mulUnbalanced(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        Arrays.fill(r, rOff, rOff + aLen + bLen, 0L);
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int p = scratch.alloc(2 * bLen);
+            long[] t = scratch.chunk;
+            for (int i = 0; i < aLen; i += bLen) {
+                int n = Math.min(bLen, aLen - i);
+                mul(t, p, a, aOff + i, n, b, bOff, bLen);
+                // Each piece lands i limbs up, and its carry can only run into limbs no piece has touched yet.
+                UIntLimbs.add(r, rOff + i, r, rOff + i, aLen + bLen - i, t, p, n + bLen);
+            }
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Multiplies two runs of limbs using Karatsuba's algorithm.
+     * Splitting a = a1*B^h + a0 and b = b1*B^h + b0, the middle term a1*b0 + a0*b1 is recovered as
+     *   (a0 + a1)(b0 + b1) - a0*b0 - a1*b1, so only three half-size products are needed instead of four.
+     * Requires bLen <= aLen < 2 * bLen, which guarantees both high halves are non-empty.
+     * When both operands are the same run, the two sums coincide and all three products become squares.
+     */
+    private static void karatsuba(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int h = aLen / 2;
+        int a1Len = aLen - h;
+        int b1Len = bLen - h;
+
+        // z0 = a0*b0 goes straight into the low half of r, and z2 = a1*b1 into the high half.
+        mul(r, rOff, a, aOff, h, b, bOff, h);
+        mul(r, rOff + 2 * h, a, aOff + h, a1Len, b, bOff + h, b1Len);
+
+        // Form the two sums, each with room for its carry.
+        int saLen = a1Len + 1;
+        int sbLen = Math.max(h, b1Len) + 1;
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int sa = scratch.alloc(saLen + sbLen + saLen + sbLen);
+            long[] t = scratch.chunk;
+            int sb = sa + saLen;
+            int z1 = sb + sbLen;
+            t[sa + a1Len] = UIntLimbs.add(t, sa, a, aOff + h, a1Len, a, aOff, h);
+            if (a == b && aOff == bOff && aLen == bLen) {
+                sb = sa;
+            } else if (h >= b1Len) {
+                t[sb + h] = UIntLimbs.add(t, sb, b, bOff, h, b, bOff + h, b1Len);
+            } else {
+                t[sb + b1Len] = UIntLimbs.add(t, sb, b, bOff + h, b1Len, b, bOff, h);
+            }
+
+            // z1 = (a0 + a1)(b0 + b1) - z0 - z2, which is never negative.
+            int z1Len = saLen + sbLen;
+            mul(t, z1, t, sa, saLen, t, sb, sbLen);
+            UIntLimbs.sub(t, z1, t, z1, z1Len, r, rOff, 2 * h);
+            UIntLimbs.sub(t, z1, t, z1, z1Len, r, rOff + 2 * h, a1Len + b1Len);
+
+            // Finally add the middle term in h limbs up. Its value fits in the product, so any limbs
+            //   of z1 that run past the end of r are zero.
+            int room = aLen + bLen - h;
+            UIntLimbs.add(r, rOff + h, r, rOff + h, room, t, z1, Math.min(z1Len, room));
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Multiplies two runs of limbs using Toom-Cook 3.
+     * Both operands are split into three k-limb pieces and treated as quadratics in x = B^k,
+     *   A(x) = a0 + a1*x + a2*x^2 and likewise B(x). The product C(x) has degree 4, so it is pinned down by
+     *   its values at the five points 0, 1, -1, 2 and infinity, each of which takes one recursive product
+     *   of roughly a third of the size. Interpolation then recovers the coefficients using only
+     *   additions, shifts and one exact division by 3.
+     * Requires bLen <= aLen and bLen > 2k, so that the top pieces of both operands are non-empty.
+     * When both operands are the same run they are only evaluated once, and all five products become squares.
+     */
+    private static void toomCook3(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int k = (aLen + 2) / 3;
+        int a2Len = aLen - 2 * k;
+        int b2Len = bLen - 2 * k;
+        int len = aLen + bLen;
+        // The evaluations fit in k+1 limbs, their products in 2k+2, and one more limb holds the sign while interpolating.
+        int e = k + 1;
+        int w = 2 * k + 3;
+
+        // Scratch layout: the evaluations of A and B at 1, -1 and 2, then the products at those points, then a temporary.
+        UIntScratch scratch = UIntScratch.get();
+        long mark = scratch.mark();
+        try {
+            int a1 = scratch.alloc(6 * e + 4 * w);
+            long[] t = scratch.chunk;
+            int am1 = a1 + e, a2 = a1 + 2 * e;
+            int b1 = a1 + 3 * e, bm1 = a1 + 4 * e, b2 = a1 + 5 * e;
+            int v1 = a1 + 6 * e, vm1 = v1 + w, v2 = vm1 + w, tmp = v2 + w;
+
+            boolean negA = evaluate(t, a1, am1, a2, a, aOff, k, a2Len);
+            boolean negB = negA;
+            if (a == b && aOff == bOff && aLen == bLen) {
+                b1 = a1;
+                bm1 = am1;
+                b2 = a2;
+            } else {
+                negB = evaluate(t, b1, bm1, b2, b, bOff, k, b2Len);
+            }
+
+            // C(0) = a0*b0 and C(inf) = a2*b2 go straight to their final places in r.
+            mul(r, rOff, a, aOff, k, b, bOff, k);
+            mul(r, rOff + 4 * k, a, aOff + 2 * k, a2Len, b, bOff + 2 * k, b2Len);
+            Arrays.fill(r, rOff + 2 * k, rOff + 4 * k, 0L);
+            int v0 = rOff;
+            int vInf = rOff + 4 * k;
+            int vInfLen = a2Len + b2Len;
+
+            // C(1), C(-1) and C(2), each sign-extended to w limbs.
+            mul(t, v1, t, a1, e, t, b1, e);
+            mul(t, vm1, t, am1, e, t, bm1, e);
+            mul(t, v2, t, a2, e, t, b2, e);
+            if (negA != negB) {
+                negate(t, vm1, w - 1);
+            }
+
+            // Interpolation, in 2's complement over w limbs so intermediate values may go negative.
+            // c1 + c3 = (C(1) - C(-1)) / 2, computed into tmp.
+            UIntLimbs.subN(t, tmp, t, v1, t, vm1, w, 0L);
+            shiftRightSigned(t, tmp, w);
+            // c2 = (C(1) + C(-1)) / 2 - c0 - c4, computed in place of C(-1).
+            UIntLimbs.addN(t, vm1, t, v1, t, vm1, w, 0L);
+            shiftRightSigned(t, vm1, w);
+            UIntLimbs.sub(t, vm1, t, vm1, w, r, v0, 2 * k);
+            UIntLimbs.sub(t, vm1, t, vm1, w, r, vInf, vInfLen);
+            // c1 + 4*c3 = (C(2) - c0 - 4*c2 - 16*c4) / 2, computed in place of C(2). C(1) is no longer needed,
+            //   so its slot holds the shifted terms.
+            UIntLimbs.sub(t, v2, t, v2, w, r, v0, 2 * k);
+            UIntLimbs.shiftLeft(t, v1, t, vm1, w, 2);
+            UIntLimbs.subN(t, v2, t, v2, t, v1, w, 0L);
+            Arrays.fill(t, v1, v1 + w, 0L);
+            t[v1 + vInfLen] = UIntLimbs.shiftLeft(t, v1, r, vInf, vInfLen, 4);
+            UIntLimbs.subN(t, v2, t, v2, t, v1, w, 0L);
+            shiftRightSigned(t, v2, w);
+            // c3 = ((c1 + 4*c3) - (c1 + c3)) / 3, and then c1 = (c1 + c3) - c3.
+            UIntLimbs.subN(t, v2, t, v2, t, tmp, w, 0L);
+            divideExactBy3(t, v2, w);
+            UIntLimbs.subN(t, tmp, t, tmp, t, v2, w, 0L);
+
+            // Every coefficient is now non-negative, so they can be added into place as plain unsigned values.
+            // Any limbs that would run past the end of r are zero.
+            addInto(r, rOff, len, k, t, tmp, w);
+            addInto(r, rOff, len, 2 * k, t, vm1, w);
+            addInto(r, rOff, len, 3 * k, t, v2, w);
+        } finally {
+            scratch.release(mark);
+        }
+    }
+
+    /**
+     * Evaluates the quadratic x0 + x1*x + x2*x^2 at 1, -1 and 2, where x0 and x1 have k limbs and x2 has x2Len.
+     * Each result takes k+1 limbs of t. The value at -1 is stored as a magnitude, and its sign is returned.
+     *
+     * @return True if the value at -1 is negative.
+     */
+    private static boolean evaluate(long[] t, int p1, int pm1, int p2, long[] x, int xOff, int k, int x2Len) {
+        // p1 holds x0 + x2 for now.
+        t[p1 + k] = UIntLimbs.add(t, p1, x, xOff, k, x, xOff + 2 * k, x2Len);
+        // The value at -1 is (x0 + x2) - x1, with its sign taken from whichever is larger.
+        boolean negative = UIntLimbs.compare(t, p1, k + 1, x, xOff + k, k) < 0;
+        if (negative) {
+            UIntLimbs.sub(t, pm1, x, xOff + k, k, t, p1, k);
+            t[pm1 + k] = 0L;
+        } else {
+            UIntLimbs.sub(t, pm1, t, p1, k + 1, x, xOff + k, k);
+        }
+        // The value at 1 is (x0 + x2) + x1.
+        UIntLimbs.add(t, p1, t, p1, k + 1, x, xOff + k, k);
+        // The value at 2 is ((x0 + x1 + x2) + x2) * 2 - x0.
+        UIntLimbs.add(t, p2, t, p1, k + 1, x, xOff + 2 * k, x2Len);
+        UIntLimbs.shiftLeft(t, p2, t, p2, k + 1, 1);
+        UIntLimbs.sub(t, p2, t, p2, k + 1, x, xOff, k);
+        return negative;
+    }
+
+    /**
+     * Negates a run of n limbs in 2's complement over n + 1 limbs, where the extra limb is initially zero.
+     */
+    private static void negate(long[] t, int off, int n) {
+        for (int i = 0; i <= n; i++) {
+            t[off + i] = ~t[off + i];
+        }
+        UIntLimbs.increment(t, off, t, off, n + 1, 1L);
+    }
+
+    /**
+     * Halves a 2's complement run of n limbs, copying the sign bit down from the top.
+     */
+    private static void shiftRightSigned(long[] t, int off, int n) {
+        long top = t[off + n - 1];
+        UIntLimbs.shiftRight(t, off, t, off, n, 1);
+        t[off + n - 1] |= top & Long.MIN_VALUE;
+    }
+
+    /**
+     * Divides a 2's complement run of n limbs by 3, assuming the division is exact.
+     * Each quotient limb is the remaining dividend limb times the inverse of 3 mod 2^64, and the high word
+     *   of that quotient limb times 3 is borrowed from the next limb up.
+     */
+    private static void divideExactBy3(long[] t, int off, int n) {
+        long borrow = 0;
+        for (int i = 0; i < n; i++) {
+            long x = t[off + i];
+            long s = x - borrow;
+            long q = s * INVERSE_OF_3;
+            t[off + i] = q;
+            borrow = UIntLimbs.mulHigh(q, 3L) + (Long.compareUnsigned(x, borrow) < 0 ? 1L : 0L);
+        }
+    }
+
+    /**
+     * Adds a w-limb coefficient into a product of len limbs, shifted up by the given number of limbs.
+     */
+    private static void addInto(long[] r, int rOff, int len, int shift, long[] t, int off, int w) {
+        int room = len - shift;
+        UIntLimbs.add(r, rOff + shift, r, rOff + shift, room, t, off, Math.min(w, room));
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * <h1>UIntNtt</h1>
+ * The FFT-class tier of the multiplication engine, used by UIntMultiplier for huge operands.
+ * The operands are cut into 16-bit digits and convolved with number-theoretic transforms modulo three
+ *   primes just under 2^30. Every step is exact integer arithmetic, so unlike a floating-point FFT there is
+ *   no rounding error to guard against. The three convolutions are recombined per digit with the Chinese
+ *   remainder theorem, which is exact as long as every convolution sum stays below the product of the primes.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntNtt {
+
+    // Three primes of the form c*2^m + 1, all with 3 as a primitive root.
+    private static final int[] PRIMES = {998244353, 167772161, 469762049};
+    private static final int GENERATOR = 3;
+
+    // The largest transform all three primes support, 2^23 points, and the largest product that fits in it.
+    private static final int MAX_TRANSFORM = 1 << 23;
+    static final int MAX_PRODUCT_LIMBS = MAX_TRANSFORM / 4;
+
+    // Constants for Garner's recombination of the three residues.
+    private static final long P1 = PRIMES[0];
+    private static final long P2 = PRIMES[1];
+    private static final long P3 = PRIMES[2];
+    private static final long P1_P2 = P1 * P2;
+    private static final long INV_P1_MOD_P2 = pow(P1 % P2, P2 - 2, P2);
+    private static final long INV_P1_MOD_P3 = pow(P1 % P3, P3 - 2, P3);
+    private static final long INV_P2_MOD_P3 = pow(P2 % P3, P3 - 2, P3);
+
+    private UIntNtt() {
+    }
+
+    /**
+     * Multiplies two runs of limbs with three-prime NTT convolution, storing the (aLen + bLen)-limb product in r.
+     * The product must not overlap either operand, and aLen + bLen must not exceed MAX_PRODUCT_LIMBS.
+     * With aLen + bLen at most MAX_PRODUCT_LIMBS = 2^21, the shorter operand has at most 2^20 limbs, or 2^22
+     *   16-bit digits, so each convolution sum adds at most 2^22 products below 2^32 and stays below 2^54.
+     *   That is far under the product of the primes (about 2^86), so the recombined digits are exact, and the
+     *   limit comes from the transform length alone.
+     *
+     * @param r The array receiving the product.
+     * @param rOff The offset of the product in r.
+     * @param a The array holding the first operand.
+     * @param aOff The offset of the first operand in a.
+     * @param aLen The number of limbs in the first operand.
+     * @param b The array holding the second operand.
+     * @param bOff The offset of the second operand in b.
+     * @param bLen The number of limbs in the second operand.
+     */
+    static void mul(long[] r, int rOff, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int digits = 4 * (aLen + bLen);
+        int n = Integer.highestOneBit(Math.max(1, digits - 1)) << 1;
+        int[][] residues = new int[PRIMES.length][];
+        for (int i = 0; i < PRIMES.length; i++) {
+            residues[i] = convolve(PRIMES[i], n, a, aOff, aLen, b, bOff, bLen);
+        }
+        recombine(r, rOff, aLen + bLen, residues);
+    }
+
+    /**
+     * Squares a run of limbs with three-prime NTT convolution, storing the 2n-limb result in r.
+     * Only one forward transform per prime is needed, since both operands transform to the same values.
+     *
+     * @param r The array receiving the square.
+     * @param rOff The offset of the square in r.
+     * @param a The array holding the operand.
+     * @param aOff The offset of the operand in a.
+     * @param n The number of limbs in the operand.
+     */
+    static void square(long[] r, int rOff, long[] a, int aOff, int n) {
+        mul(r, rOff, a, aOff, n, a, aOff, n);
+    }
+
+    /**
+     * Computes the cyclic convolution of the 16-bit digits of both operands modulo p, using n-point transforms.
+     */
+    private static int[] convolve(int p, int n, long[] a, int aOff, int aLen, long[] b, int bOff, int bLen) {
+        int[] roots = roots(p, n);
+        int[] x = digits(n, a, aOff, aLen);
+        transform(x, p, roots, false);
+        int[] y = x;
+        if (a != b || aOff != bOff || aLen != bLen) {
+            y = digits(n, b, bOff, bLen);
+            transform(y, p, roots, false);
+        }
+        for (int i = 0; i < n; i++) {
+            x[i] = (int) ((long) x[i] * y[i] % p);
+        }
+        transform(x, p, roots, true);
+        // The inverse transform leaves every value scaled by n.
+        long nInverse = pow(n, p - 2, p);
+        for (int i = 0; i < n; i++) {
+            x[i] = (int) (x[i] * nInverse % p);
+        }
+        return x;
+    }
+
+    /**
+     * Unpacks a run of limbs into n 16-bit digits, least-significant first, padded with zeros.
+     */
+    private static int[] digits(int n, long[] a, int aOff, int aLen) {
+        int[] d = new int[n];
+        for (int i = 0; i < aLen; i++) {
+            long limb = a[aOff + i];
+            d[4 * i] = (int) (limb & 0xFFFF);
+            d[4 * i + 1] = (int) (limb >>> 16 & 0xFFFF);
+            d[4 * i + 2] = (int) (limb >>> 32 & 0xFFFF);
+            d[4 * i + 3] = (int) (limb >>> 48);
+        }
+        return d;
+    }
+
+    /**
+     * Returns the powers w^0 .. w^(n/2 - 1) of a primitive n-th root of unity w modulo p.
+     */
+    private static int[] roots(int p, int n) {
+        long w = pow(GENERATOR, (p - 1) / n, p);
+        int[] roots = new int[Math.max(1, n / 2)];
+        long x = 1;
+        for (int i = 0; i < roots.length; i++) {
+            roots[i] = (int) x;
+            x = x * w % p;
+        }
+        return roots;
+    }
+
+    /**
+     * Transforms x in place with an iterative radix-2 Cooley-Tukey NTT modulo p.
+     * The inverse transform walks the roots backwards, which is the same as using w^-1, and is not scaled.
+     */
+    private static void transform(int[] x, int p, int[] roots, boolean inverse) {
+        int n = x.length;
+        // Put the inputs in bit-reversed order so every butterfly pass can work in place.
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) {
+                j ^= bit;
+            }
+            j ^= bit;
+            if (i < j) {
+                int t = x[i];
+                x[i] = x[j];
+                x[j] = t;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            int half = len >> 1;
+            int step = n / len;
+            for (int start = 0; start < n; start += len) {
+                for (int k = 0; k < half; k++) {
+                    int index = k * step;
+                    // w^-j is w^(n - j), which is minus w^(n/2 - j), so the inverse negates a mirrored root.
+                    long w = inverse && index != 0 ? p - roots[n / 2 - index] : roots[index];
+                    int u = x[start + k];
+                    int v = (int) (x[start + k + half] * w % p);
+                    int s = u + v;
+                    int d = u - v;
+                    x[start + k] = s >= p ? s - p : s;
+                    x[start + k + half] = d < 0 ? d + p : d;
+                }
+            }
+        }
+    }
+
+    /**
+     * Recombines the three residues of every convolution sum with Garner's algorithm and propagates the
+     *   carries between 16-bit digits, writing n limbs of the result into r.
+     */
+    private static void recombine(long[] r, int rOff, int n, int[][] residues) {
+        int[] x1 = residues[0];
+        int[] x2 = residues[1];
+        int[] x3 = residues[2];
+        // The running carry is an unsigned 128-bit value, split across two longs.
+        long carryLo = 0;
+        long carryHi = 0;
+        long limb = 0;
+        for (int i = 0; i < 4 * n; i++) {
+            long r1 = x1[i];
+            long t2 = (x2[i] - r1 % P2 + P2) % P2 * INV_P1_MOD_P2 % P2;
+            long t3 = ((x3[i] - r1 % P3 + P3) % P3 * INV_P1_MOD_P3 % P3 - t2 % P3 + P3) % P3 * INV_P2_MOD_P3 % P3;
+            // value = r1 + t2*P1 + t3*P1*P2, where only the last term can exceed 64 bits.
+            long lo = t3 * P1_P2;
+            long hi = Math.multiplyHigh(t3, P1_P2);
+            long small = r1 + t2 * P1;
+            lo += small;
+            hi += Long.compareUnsigned(lo, small) < 0 ? 1 : 0;
+            carryLo += lo;
+            carryHi += hi + (Long.compareUnsigned(carryLo, lo) < 0 ? 1 : 0);
+
+            limb |= (carryLo & 0xFFFF) << (16 * (i & 3));
+            if ((i & 3) == 3) {
+                r[rOff + (i >> 2)] = limb;
+                limb = 0;
+            }
+            carryLo = (carryLo >>> 16) | (carryHi << 48);
+            carryHi >>>= 16;
+        }
+    }
+
+    /**
+     * Returns base^exponent mod m for a modulus below 2^31.
+     */
+    private static long pow(long base, long exponent, long m) {
+        long result = 1;
+        base %= m;
+        while (exponent > 0) {
+            if ((exponent & 1) != 0) {
+                result = result * base % m;
+            }
+            base = base * base % m;
+            exponent >>= 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,309 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <h1>UIntRadix</h1>
+ * The radix conversion engine behind UInt.toString(int) and UInt.parse.
+ * Digits are handled in chunks of as many digits as fit in a long (18 for decimal), so small values need one
+ *   division or multiplication by a single limb per chunk. Past BASECASE_LIMBS limbs the work is split in half
+ *   instead: formatting divides by a power radix^(d 2^k) of about half the size and formats the quotient and the
+ *   zero-padded remainder separately, and parsing joins the two halves of the string with one multiplication.
+ *   Both then run at the speed of UInt.mul and UInt.div rather than in quadratic time.
+ * Radices that are powers of two skip all of that: each digit is a fixed-width field of bits, so it is sliced
+ *   straight out of the limbs (or written straight into them) in a single linear pass with no arithmetic.
+ * The powers chunk^(2^k) are built by repeated squaring and cached per radix, up to the uint.radixPowerCacheLimbs
+ *   system property (in limbs) per power, which keeps the cache for each radix below twice that size.
+ *   Larger powers are recomputed by every call that needs them.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntRadix {
+
+    // Below this many limbs, values are converted one chunk at a time rather than split in half.
+    static final int BASECASE_LIMBS = 24;
+
+    // The largest power, in limbs, kept in the cache.
+    static final int CACHE_LIMBS = Math.max(1, Integer.getInteger("uint.radixPowerCacheLimbs", 1 << 16));
+
+    // The digit characters, indexed by value.
+    private static final char[] DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz".toCharArray();
+
+    // CHUNK_DIGITS[r] is the most digits of radix r whose value always fits in a long, and CHUNK[r] is r to that power.
+    private static final int[] CHUNK_DIGITS = new int[Character.MAX_RADIX + 1];
+    private static final long[] CHUNK = new long[Character.MAX_RADIX + 1];
+
+    // CHUNK_BITS[r] is log2(CHUNK[r]), which sizes the powers of CHUNK[r] without computing them.
+    private static final double[] CHUNK_BITS = new double[Character.MAX_RADIX + 1];
+
+    // POWERS[r][k] holds CHUNK[r]^(2^k), trimmed to its significant limbs.
+    private static final AtomicReferenceArray<long[][]> POWERS = new AtomicReferenceArray<>(Character.MAX_RADIX + 1);
+
+    static {
+        for (int r = Character.MIN_RADIX; r <= Character.MAX_RADIX; r++) {
+            long p = 1;
+            int d = 0;
+            while (p <= Long.MAX_VALUE / r) {
+                p *= r;
+                d++;
+            }
+            CHUNK_DIGITS[r] = d;
+            CHUNK[r] = p;
+            CHUNK_BITS[r] = Math.log(p) / Math.log(2);
+        }
+    }
+
+    private UIntRadix() {
+    }
+
+    /**
+     * Formats a run of limbs in the given radix, with no leading zeros.
+     *
+     * @param a The array holding the value.
+     * @param n The number of limbs in the value.
+     * @param radix The radix, from Character.MIN_RADIX to Character.MAX_RADIX.
+     * @return The digits, using lowercase letters past 9.
+     */
+    static String toString(long[] a, int n, int radix) {
+        n = UIntLimbs.significant(a, 0, n);
+        if (n == 0) {
+            return "0";
+        }
+        if (n == 1) {
+            return Long.toUnsignedString(a[0], radix);
+        }
+        if ((radix & (radix - 1)) == 0) {
+            return toStringPow2(a, n, Integer.numberOfTrailingZeros(radix));
+        }
+        StringBuilder s = new StringBuilder((int) (64 * n / (Math.log(radix) / Math.log(2))) + 1);
+        format(s, a, 0, n, radix, 0);
+        return s.toString();
+    }
+
+    /**
+     * Parses a string of digits in the given radix.
+     *
+     * @param s The digits, with no sign or prefix.
+     * @param radix The radix, from Character.MIN_RADIX to Character.MAX_RADIX.
+     * @return The limbs of the value, trimmed to the significant ones.
+     * @throws NumberFormatException If a character is not a digit in the radix.
+     */
+    static long[] parse(CharSequence s, int radix) {
+        if ((radix & (radix - 1)) == 0) {
+            return parsePow2(s, Integer.numberOfTrailingZeros(radix));
+        }
+        return parse(s, 0, s.length(), radix);
+    }
+
+    /**
+     * Formats n significant limbs in radix 2^shift, slicing each digit's bits straight out of the limbs.
+     */
+    private static String toStringPow2(long[] a, int n, int shift) {
+        int bits = 64 * n - Long.numberOfLeadingZeros(a[n - 1]);
+        int digits = (bits + shift - 1) / shift;
+        int mask = (1 << shift) - 1;
+        char[] out = new char[digits];
+        for (int i = 0; i < digits; i++) {
+            int pos = i * shift;
+            int limb = pos >>> 6;
+            int off = pos & 63;
+            long v = a[limb] >>> off;
+            // A digit whose bits straddle two limbs takes the rest of them from the next one up.
+            if (off + shift > 64 && limb + 1 < n) {
+                v |= a[limb + 1] << (64 - off);
+            }
+            out[digits - 1 - i] = DIGITS[(int) v & mask];
+        }
+        return new String(out);
+    }
+
+    /**
+     * Parses digits in radix 2^shift by writing each digit's bits straight into place, starting from the last digit.
+     */
+    private static long[] parsePow2(CharSequence s, int shift) {
+        int len = s.length();
+        int radix = 1 << shift;
+        long[] r = new long[(int) (((long) len * shift + 63) >>> 6)];
+        for (int i = 0; i < len; i++) {
+            char ch = s.charAt(len - 1 - i);
+            long digit = Character.digit(ch, radix);
+            if (digit < 0) {
+                throw new NumberFormatException("Invalid digit '" + ch + "' at index " + (len - 1 - i) + " for radix " + radix);
+            }
+            long pos = (long) i * shift;
+            int limb = (int) (pos >>> 6);
+            int off = (int) pos & 63;
+            r[limb] |= digit << off;
+            if (off + shift > 64) {
+                r[limb + 1] |= digit >>> (64 - off);
+            }
+        }
+        return trim(r);
+    }
+
+    /**
+     * Appends the digits of a value, with leading zeros up to pad digits.
+     */
+    private static void format(StringBuilder s, long[] a, int aOff, int n, int radix, int pad) {
+        n = UIntLimbs.significant(a, aOff, n);
+        if (n <= BASECASE_LIMBS) {
+            formatBasecase(s, a, aOff, n, radix, pad);
+            return;
+        }
+        // Split at the largest power with at most half the limbs, so the quotient and remainder are about the same size.
+        //   The next power up is only sized, not built, since past the cache it would cost a full squaring.
+        int k = 0;
+        while (powerLimbs(radix, k + 1) <= (n + 1) / 2) {
+            k++;
+        }
+        long[] p = power(radix, k);
+        int m = p.length;
+        long[] q = new long[n - m + 1];
+        long[] r = new long[m];
+        UIntDivider.divRem(q, 0, r, 0, a, aOff, n, p, 0, m);
+        // The remainder stands for exactly d 2^k digits, so its leading zeros are kept.
+        int low = CHUNK_DIGITS[radix] << k;
+        format(s, q, 0, q.length, radix, Math.max(pad - low, 0));
+        format(s, r, 0, m, radix, low);
+    }
+
+    /**
+     * Appends the digits of a value of at most BASECASE_LIMBS limbs by peeling off one chunk per single-limb division.
+     */
+    private static void formatBasecase(StringBuilder s, long[] a, int aOff, int n, int radix, int pad) {
+        int d = CHUNK_DIGITS[radix];
+        long[] t = Arrays.copyOfRange(a, aOff, aOff + n);
+        // Every chunk is above 2^57, so a limb never holds more than two of them.
+        long[] chunks = new long[2 * n];
+        int c = 0;
+        while (n > 0) {
+            chunks[c++] = UIntDivider.divideByLimb(t, 0, t, 0, n, CHUNK[radix]);
+            n = UIntLimbs.significant(t, 0, n);
+        }
+        String top = c == 0 ? "" : Long.toString(chunks[c - 1], radix);
+        for (int i = top.length() + d * Math.max(c - 1, 0); i < pad; i++) {
+            s.append('0');
+        }
+        s.append(top);
+        for (int i = c - 2; i >= 0; i--) {
+            String digits = Long.toString(chunks[i], radix);
+            for (int j = digits.length(); j < d; j++) {
+                s.append('0');
+            }
+            s.append(digits);
+        }
+    }
+
+    /**
+     * Parses s[from..to) into a trimmed run of limbs.
+     */
+    private static long[] parse(CharSequence s, int from, int to, int radix) {
+        int d = CHUNK_DIGITS[radix];
+        int len = to - from;
+        if (len <= d * BASECASE_LIMBS) {
+            return parseBasecase(s, from, to, radix);
+        }
+        // The low part takes d 2^k digits, the largest such count that is at most half the string.
+        int k = 0;
+        while ((long) d << (k + 2) <= len) {
+            k++;
+        }
+        int split = to - (d << k);
+        long[] hi = parse(s, from, split, radix);
+        long[] lo = parse(s, split, to, radix);
+        if (hi.length == 0) {
+            return lo;
+        }
+        // hi * radix^(d 2^k) + lo, where lo is below the power so the sum needs no extra limb.
+        long[] p = power(radix, k);
+        long[] r = new long[hi.length + p.length];
+        UIntMultiplier.mul(r, 0, hi, 0, hi.length, p, 0, p.length);
+        UIntLimbs.add(r, 0, r, 0, r.length, lo, 0, lo.length);
+        return trim(r);
+    }
+
+    /**
+     * Parses a short run of digits one chunk at a time, multiplying the value so far by radix^d before each chunk is added.
+     */
+    private static long[] parseBasecase(CharSequence s, int from, int to, int radix) {
+        int d = CHUNK_DIGITS[radix];
+        long[] r = new long[(to - from) / d + 2];
+        int n = 0;
+        // The first chunk takes the digits left over from whole chunks, so every later one is exactly d digits.
+        int end = from + ((to - from) % d == 0 ? d : (to - from) % d);
+        for (int i = from; i < to; end += d) {
+            long scale = 1;
+            long chunk = 0;
+            for (; i < end; i++) {
+                char ch = s.charAt(i);
+                int digit = Character.digit(ch, radix);
+                if (digit < 0) {
+                    throw new NumberFormatException("Invalid digit '" + ch + "' at index " + i + " for radix " + radix);
+                }
+                chunk = chunk * radix + digit;
+                scale *= radix;
+            }
+            long carry = UIntLimbs.mul1(r, 0, r, 0, n, scale);
+            if (carry != 0) {
+                r[n++] = carry;
+            }
+            carry = chunk;
+            for (int j = 0; j < n && carry != 0; j++) {
+                long sum = r[j] + carry;
+                carry = Long.compareUnsigned(sum, carry) < 0 ? 1L : 0L;
+                r[j] = sum;
+            }
+            if (carry != 0) {
+                r[n++] = carry;
+            }
+        }
+        return trim(r);
+    }
+
+    /**
+     * Returns CHUNK[radix]^(2^k), from the cache when it is small enough to be kept there.
+     */
+    static long[] power(int radix, int k) {
+        long[][] cached = POWERS.get(radix);
+        if (cached == null) {
+            cached = new long[][]{{CHUNK[radix]}};
+            POWERS.compareAndSet(radix, null, cached);
+            cached = POWERS.get(radix);
+        }
+        if (k < cached.length) {
+            return cached[k];
+        }
+        long[][] grown = cached;
+        long[] p = cached[cached.length - 1];
+        for (int i = cached.length; i <= k; i++) {
+            long[] sq = new long[2 * p.length];
+            UIntMultiplier.square(sq, 0, p, 0, p.length);
+            p = trim(sq);
+            if (i == grown.length && p.length <= CACHE_LIMBS) {
+                grown = Arrays.copyOf(grown, i + 1);
+                grown[i] = p;
+            }
+        }
+        // Another thread may have grown the cache first, in which case its copy is kept.
+        if (grown != cached) {
+            POWERS.compareAndSet(radix, cached, grown);
+        }
+        return p;
+    }
+
+    /**
+     * Returns about how many limbs CHUNK[radix]^(2^k) has, from its logarithm. The estimate can only be off by one
+     *   when the bit length lands right on a limb boundary, which at worst moves a split point by one power.
+     */
+    private static long powerLimbs(int radix, int k) {
+        return (long) (Math.scalb(CHUNK_BITS[radix], k) / 64) + 1;
+    }
+
+    /**
+     * Returns a copy of a limb array without its leading zero limbs, or the array itself if it has none.
+     */
+    private static long[] trim(long[] a) {
+        int n = UIntLimbs.significant(a, 0, a.length);
+        return n == a.length ? a : Arrays.copyOf(a, n);
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * <h1>UIntScratch</h1>
+ * A per-thread arena for the temporary limb runs used inside the multiplication and division kernels.
+ * Runs are bumped off the top of a chunk and given back in stack order: a kernel takes a mark, allocates what it
+ *   needs, and releases back to the mark before it returns, so recursive algorithms such as Karatsuba and
+ *   Burnikel-Ziegler reuse the same memory at every level. When a chunk runs out a larger one is added, and
+ *   once the whole arena is released the chunks are merged into one, so after the first few calls of a given
+ *   size the kernels allocate nothing at all.
+ * Chunks larger than the uint.scratchRetainLimbs system property (in limbs) are not kept between calls,
+ *   so one huge product does not pin its scratch memory for the life of the thread.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public final class UIntScratch {
+
+    // The largest arena, in limbs, that is kept once every run has been released.
+    private static final int RETAIN_LIMBS = Math.max(0, Integer.getInteger("uint.scratchRetainLimbs", 1 << 20));
+
+    // The size of the first chunk, in limbs.
+    private static final int INITIAL_LIMBS = 1024;
+
+    private static final ThreadLocal<UIntScratch> LOCAL = ThreadLocal.withInitial(UIntScratch::new);
+
+    // Called with every new high-water mark, on the thread that reached it.
+    private static volatile IntConsumer listener;
+
+    // The chunks of the arena. Runs are taken from chunks[current], starting at top.
+    private long[][] chunks = {new long[INITIAL_LIMBS]};
+    private int current;
+    private int top;
+
+    // The total size of the chunks below the current one, which makes base + top the limbs in use.
+    private int base;
+
+    // The most limbs this arena has had in use since the last reset.
+    private int highWater;
+
+    // The chunk holding the run most recently returned by alloc.
+    long[] chunk;
+
+    private UIntScratch() {
+    }
+
+    /**
+     * Returns the arena of the calling thread.
+     */
+    static UIntScratch get() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Allocates a zeroed run of n limbs. The run lives in the chunk field, which must be read right after this
+     *   call, since a later alloc may move on to a different chunk.
+     *
+     * @param n The number of limbs.
+     * @return The offset of the run in chunk.
+     */
+    int alloc(int n) {
+        if (top + n > chunks[current].length) {
+            nextChunk(n);
+        }
+        int off = top;
+        top += n;
+        chunk = chunks[current];
+        Arrays.fill(chunk, off, top, 0L);
+        if (base + top > highWater) {
+            highWater = base + top;
+            IntConsumer l = listener;
+            if (l != null) {
+                l.accept(highWater);
+            }
+        }
+        return off;
+    }
+
+    /**
+     * Returns the current position of the arena, for a later release.
+     */
+    long mark() {
+        return (long) current << 32 | top;
+    }
+
+    /**
+     * Gives back every run allocated since the given mark.
+     * Releasing the whole arena also merges its chunks, so the next call finds all the space in one chunk.
+     */
+    void release(long mark) {
+        int c = (int) (mark >>> 32);
+        top = (int) mark;
+        if (c != current) {
+            current = c;
+            base = 0;
+            for (int i = 0; i < c; i++) {
+                base += chunks[i].length;
+            }
+        }
+        if (mark == 0L && (chunks.length > 1 || chunks[0].length > Math.max(RETAIN_LIMBS, INITIAL_LIMBS))) {
+            long total = 0;
+            for (long[] ch : chunks) {
+                total += ch.length;
+            }
+            chunks = new long[][]{new long[(int) Math.min(total, Math.max(RETAIN_LIMBS, INITIAL_LIMBS))]};
+        }
+        chunk = null;
+    }
+
+    /**
+     * Moves on to a chunk with room for at least n limbs, adding or replacing one as needed.
+     */
+    private void nextChunk(int n) {
+        base += chunks[current].length;
+        current++;
+        top = 0;
+        if (current == chunks.length) {
+            chunks = Arrays.copyOf(chunks, current + 1);
+        }
+        if (chunks[current] == null || chunks[current].length < n) {
+            // Chunks at least double, so a single call only ever needs a handful of them.
+            chunks[current] = new long[Math.max(n, 2 * chunks[current - 1].length)];
+        }
+    }
+
+    /**
+     * Returns the most limbs the calling thread's arena has had in use since the last reset.
+     *
+     * @return The high-water mark, in limbs.
+     */
+    public static int highWaterMark() {
+        return get().highWater;
+    }
+
+    /**
+     * Resets the calling thread's high-water mark to 0.
+     */
+    public static void resetHighWaterMark() {
+        get().highWater = 0;
+    }
+
+    /**
+     * Sets a hook that is called with every new high-water mark, on the thread that reached it.
+     * The hook runs inside the arithmetic, so it should only record the value.
+     *
+     * @param hook The hook, or null to remove it.
+     */
+    public static void setHighWaterMarkListener(IntConsumer hook) {
+        listener = hook;
+    }
+}
@@ -0,0 +1,404 @@
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Optional;
+
+/**
+ * <h1>UIntSegment</h1>
+ * An unsigned integer whose 64-bit limbs live in a MemorySegment instead of a long[], so that values of many
+ *   gigabytes can sit outside the garbage-collected heap or be mapped straight from a file.
+ * The limbs use the same little-endian layout as UInt, and the bitwise operations, add, sub, negate and compareTo
+ *   run directly on the segment with the same length rules as their UInt counterparts, without any heap copy.
+ * mul, div and rem are the exception, by design: they copy both operands onto the heap with toUInt, run the UInt
+ *   kernels there and copy the result back. Those kernels (Karatsuba, Toom-Cook, the NTT, Burnikel-Ziegler,
+ *   Newton) are written against long[] with offsets, and porting them to MemorySegment would mean a second copy
+ *   of the whole engine, while the copies only add linear time to work that grows faster than that. So these
+ *   three need heap room for their operands and result, and are limited to values that fit in a long[].
+ * Conversions are explicit: wrap and toUInt share the limbs without copying whenever the segment is a view of a
+ *   long[] on a little-endian platform, and copyOf always copies.
+ * Segments come from the Arena given at creation, and are freed when that arena is closed.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+public class UIntSegment {
+
+    // Limbs are stored least-significant first, each one little-endian, whatever the platform's byte order.
+    private static final ValueLayout.OfLong LIMB = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // Whether a long[] already has the byte layout of a segment, which is what allows sharing without a copy.
+    private static final boolean NATIVE_LAYOUT = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+
+    // The segment holding the limbs. Its size is the capacity; limbs above the length are always 0.
+    private MemorySegment limbs;
+
+    // The number of bits used to represent the unsigned integer.
+    private long length;
+
+    // The arena new segments come from when a result outgrows the current one, or null for wrapped arrays.
+    private final Arena arena;
+
+    private UIntSegment(MemorySegment limbs, long length, Arena arena) {
+        this.limbs = limbs;
+        this.length = length;
+        this.arena = arena;
+    }
+
+    /**
+     * Allocates a zero-valued UIntSegment of the given length from an arena.
+     *
+     * @param arena The arena that owns the new segment.
+     * @param bitLength The number of bits in the new value.
+     * @return The new UIntSegment.
+     */
+    public static UIntSegment allocate(Arena arena, long bitLength) {
+        return new UIntSegment(arena.allocate(8 * limbs(bitLength), 8), bitLength, arena);
+    }
+
+    /**
+     * Copies an on-heap UInt into a new segment allocated from an arena.
+     *
+     * @param u The UInt to copy.
+     * @param arena The arena that owns the new segment.
+     * @return The new UIntSegment.
+     */
+    public static UIntSegment copyOf(UInt u, Arena arena) {
+        UIntSegment s = allocate(arena, u.length);
+        MemorySegment.copy(u.limbs(), 0, s.limbs, LIMB, 0, UInt.limbs(u.length));
+        return s;
+    }
+
+    /**
+     * Returns a UIntSegment that views the limbs of an on-heap UInt without copying them where the layouts match
+     *   (on little-endian platforms), and a heap copy otherwise. Changes through a shared view show up in u,
+     *   as long as neither of them outgrows the array. An ImmutableUInt is always copied, so it stays unchanged.
+     *
+     * @param u The UInt to view.
+     * @return The view.
+     */
+    public static UIntSegment wrap(UInt u) {
+        if (NATIVE_LAYOUT && !(u instanceof ImmutableUInt)) {
+            // A value held inline has no array to share until it is given one.
+            u.inflate();
+            return new UIntSegment(MemorySegment.ofArray(u.bits), u.length, null);
+        }
+        long[] limbs = u.limbs();
+        MemorySegment s = MemorySegment.ofArray(new long[Math.max(limbs.length, UInt.limbs(u.length))]);
+        MemorySegment.copy(limbs, 0, s, LIMB, 0, UInt.limbs(u.length));
+        return new UIntSegment(s, u.length, null);
+    }
+
+    /**
+     * Maps a value stored in a file, as little-endian 64-bit limbs starting at the given position.
+     * The mapping stays valid until the arena is closed, and with a READ_WRITE mode every operation on the
+     *   result writes straight through to the file. Any bits of the top limb above bitLength are cleared, except
+     *   in a READ_ONLY mapping, which cannot be written: there they stay in the file and are masked off whenever
+     *   the top limb is read, so they never show up in the value.
+     *
+     * @param channel The file to map.
+     * @param mode The mapping mode.
+     * @param position The byte offset of the lowest limb in the file.
+     * @param bitLength The number of bits in the stored value.
+     * @param arena The arena that owns the mapping.
+     * @return The mapped UIntSegment.
+     * @throws IOException If the file cannot be mapped.
+     */
+    public static UIntSegment map(FileChannel channel, FileChannel.MapMode mode, long position, long bitLength,
+                                  Arena arena) throws IOException {
+        UIntSegment s = new UIntSegment(channel.map(mode, position, 8 * limbs(bitLength), arena), bitLength, arena);
+        if (mode != FileChannel.MapMode.READ_ONLY) {
+            s.clearHighBits();
+        }
+        return s;
+    }
+
+    /**
+     * Converts this value to an on-heap UInt. When the segment is a view of a whole long[] in the same layout,
+     *   the UInt shares that array; otherwise the limbs are copied.
+     *
+     * @return The UInt.
+     * @throws ArithmeticException If the value is too long for a UInt.
+     */
+    public UInt toUInt() {
+        if (length > Integer.MAX_VALUE - 63) {
+            throw new ArithmeticException("UIntSegment too long for a UInt");
+        }
+        int n = UInt.limbs((int) length);
+        Optional<Object> base = limbs.heapBase();
+        if (NATIVE_LAYOUT && base.isPresent() && base.get() instanceof long[] array
+                && limbs.address() == 0 && array.length >= n && limbs.byteSize() == 8L * array.length) {
+            return new UInt(array, (int) length);
+        }
+        long[] bits = new long[n];
+        MemorySegment.copy(limbs, LIMB, 0, bits, 0, n);
+        if (n > 0) {
+            bits[n - 1] = limb(n - 1);
+        }
+        return new UInt(bits, (int) length);
+    }
+
+    /**
+     * Returns the segment holding the limbs, for I/O or native code. Its size is the capacity of this value.
+     *
+     * @return The segment.
+     */
+    public MemorySegment segment() {
+        return limbs;
+    }
+
+    /**
+     * Returns the number of bits in this value.
+     *
+     * @return The length.
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * Returns a String representation of this binary object with a leading 0b, in the same format as UInt.
+     *
+     * @return The constructed String.
+     * @throws ArithmeticException If the value has more digits than a String can hold.
+     */
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder(Math.toIntExact(length + 2)).append("0b");
+        for (long i = length - 1; i >= 0; i--) {
+            s.append((limb(i >>> 6) >>> i & 1L) == 1L ? '1' : '0');
+        }
+        return s.toString();
+    }
+
+    /**
+     * Performs a logical AND with u in place, keeping this length.
+     *
+     * @param u The value to AND this against.
+     */
+    public void and(UIntSegment u) {
+        long n = limbs(this.length);
+        long m = Math.min(n, limbs(u.length));
+        for (long i = 0; i < m; i++) {
+            setLimb(i, limb(i) & u.limb(i));
+        }
+        // Against the implicit zero padding of u, the rest of this is cleared.
+        if (n > m) {
+            limbs.asSlice(8 * m, 8 * (n - m)).fill((byte) 0);
+        }
+    }
+
+    /**
+     * Performs a logical OR with u in place, keeping this length.
+     *
+     * @param u The value to OR this against.
+     */
+    public void or(UIntSegment u) {
+        long n = Math.min(limbs(this.length), limbs(u.length));
+        for (long i = 0; i < n; i++) {
+            setLimb(i, limb(i) | u.limb(i));
+        }
+        clearHighBits();
+    }
+
+    /**
+     * Performs a logical XOR with u in place, keeping this length.
+     *
+     * @param u The value to XOR this against.
+     */
+    public void xor(UIntSegment u) {
+        long n = Math.min(limbs(this.length), limbs(u.length));
+        for (long i = 0; i < n; i++) {
+            setLimb(i, limb(i) ^ u.limb(i));
+        }
+        clearHighBits();
+    }
+
+    /**
+     * Adds u to this value in place. As with UInt.add, the result is as long as the longer operand and grows
+     *   by a single bit only when the final carry-out is set. The segment is replaced with a larger one from
+     *   the arena only when its capacity is too small.
+     *
+     * @param u The value to add to this.
+     */
+    public void add(UIntSegment u) {
+        long len = Math.max(this.length, u.length);
+        long n = limbs(len);
+        long m = limbs(u.length);
+        reserve(n);
+        long carry = 0;
+        for (long i = 0; i < n; i++) {
+            // Past the end of u, the limbs only change while a carry is still rippling.
+            if (i >= m && carry == 0) {
+                break;
+            }
+            long x = limb(i);
+            long y = i < m ? u.limb(i) : 0L;
+            long s = x + y + carry;
+            carry = ((x & y) | ((x | y) & ~s)) >>> 63;
+            setLimb(i, s);
+        }
+        if ((len & 63) == 0) {
+            if (carry != 0) {
+                reserve(n + 1);
+                setLimb(n, 1L);
+                len++;
+            }
+        } else if ((limb(n - 1) >>> len & 1L) != 0) {
+            len++;
+        }
+        this.length = len;
+    }
+
+    /**
+     * Performs 2's complement negation of this value within its current length.
+     */
+    public void negate() {
+        long n = limbs(this.length);
+        long carry = 1;
+        for (long i = 0; i < n; i++) {
+            long s = ~limb(i) + carry;
+            carry = carry != 0 && s == 0 ? 1L : 0L;
+            setLimb(i, s);
+        }
+        clearHighBits();
+    }
+
+    /**
+     * Subtracts u from this value in place, keeping this length. As with UInt.sub, a result that would be
+     *   negative is coerced to 0.
+     *
+     * @param u The value to subtract from this.
+     */
+    public void sub(UIntSegment u) {
+        long n = limbs(this.length);
+        long m = limbs(u.length);
+        if (compareTo(u) < 0) {
+            limbs.asSlice(0, 8 * n).fill((byte) 0);
+            return;
+        }
+        long borrow = 0;
+        for (long i = 0; i < n; i++) {
+            if (i >= m && borrow == 0) {
+                break;
+            }
+            long x = limb(i);
+            long y = i < m ? u.limb(i) : 0L;
+            long d = x - y - borrow;
+            borrow = ((~x & y) | (~(x ^ y) & d)) >>> 63;
+            setLimb(i, d);
+        }
+    }
+
+    /**
+     * Multiplies this value by u, with length X+Y. The limbs are copied into arrays for the UInt kernels
+     *   and the product is copied back, into a new segment if this one is too small.
+     *
+     * @param u The value to multiply this by.
+     * @throws ArithmeticException If either value is too long for a UInt.
+     */
+    public void mul(UIntSegment u) {
+        UInt p = UInt.mul(this.toUInt(), u.toUInt());
+        store(p);
+    }
+
+    /**
+     * Divides this value by u, keeping this length. The division runs on arrays, as in mul.
+     *
+     * @param u The value to divide this by.
+     * @throws ArithmeticException If u is 0, or either value is too long for a UInt.
+     */
+    public void div(UIntSegment u) {
+        UInt q = UInt.div(this.toUInt(), u.toUInt());
+        store(q);
+    }
+
+    /**
+     * Replaces this value with its remainder modulo u. The division runs on arrays, as in mul.
+     *
+     * @param u The value to divide this by.
+     * @throws ArithmeticException If u is 0, or either value is too long for a UInt.
+     */
+    public void rem(UIntSegment u) {
+        UInt r = UInt.rem(this.toUInt(), u.toUInt());
+        store(r);
+    }
+
+    /**
+     * Compares the values of this and u, regardless of their lengths.
+     *
+     * @param u The value to compare against.
+     * @return A negative number, zero or a positive number as this is less than, equal to or greater than u.
+     */
+    public int compareTo(UIntSegment u) {
+        long n = limbs(this.length);
+        long m = limbs(u.length);
+        for (long i = Math.max(n, m) - 1; i >= 0; i--) {
+            long x = i < n ? limb(i) : 0L;
+            long y = i < m ? u.limb(i) : 0L;
+            if (x != y) {
+                return Long.compareUnsigned(x, y);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the number of 64-bit limbs needed to hold the given number of bits.
+     */
+    private static long limbs(long bitLength) {
+        return (bitLength + 63) >> 6;
+    }
+
+    /**
+     * Reads limb i. In a read-only segment the bits of the top limb above the length could not be cleared, so
+     *   they are masked off here instead.
+     */
+    private long limb(long i) {
+        long v = limbs.getAtIndex(LIMB, i);
+        return limbs.isReadOnly() && i == (length - 1) >>> 6 ? v & (-1L >>> (-length & 63)) : v;
+    }
+
+    private void setLimb(long i, long value) {
+        limbs.setAtIndex(LIMB, i, value);
+    }
+
+    /**
+     * Makes sure the segment holds at least n limbs, moving the value to a new segment from the arena if not.
+     */
+    private void reserve(long n) {
+        if (limbs.byteSize() < 8 * n) {
+            MemorySegment grown = arena != null
+                    ? arena.allocate(8 * n, 8)
+                    : MemorySegment.ofArray(new long[Math.toIntExact(n)]);
+            grown.copyFrom(limbs);
+            limbs = grown;
+        }
+    }
+
+    /**
+     * Copies a result computed on the heap into this value, clearing any limbs of the old value above it.
+     */
+    private void store(UInt u) {
+        long old = limbs(this.length);
+        int n = UInt.limbs(u.length);
+        reserve(n);
+        MemorySegment.copy(u.limbs(), 0, limbs, LIMB, 0, n);
+        if (old > n) {
+            limbs.asSlice(8L * n, 8 * (old - n)).fill((byte) 0);
+        }
+        this.length = u.length;
+    }
+
+    /**
+     * Clears any bits of the top limb that lie above the length.
+     */
+    private void clearHighBits() {
+        if (length > 0) {
+            long top = limbs(length) - 1;
+            setLimb(top, limb(top) & (-1L >>> (-length & 63)));
+        }
+    }
+}
@@ -0,0 +1,200 @@
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * <h1>ValueTest</h1>
+ * A randomized testing script for the value-style API around UInt.
+ * Every ImmutableUInt operation is checked against the in-place UInt operation on a clone of the same operands,
+ *   and the operands themselves are checked to be unchanged afterwards.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Oct 23, 2024)
+ */
+public class ValueTest {
+    public static void main(String[] args) {
+        try {
+            Random rng = new Random(3310);
+            int passed = 0;
+            int total = 0;
+
+            // ImmutableUInt tests on the values from Test
+            ImmutableUInt i1 = new ImmutableUInt(157);
+            ImmutableUInt i2 = new ImmutableUInt(943);
+            UInt u1 = new UInt(157);
+            UInt u2 = new UInt(943);
+            passed += checkSame(++total, i1.plus(i2), UInt.add(u1, u2));
+            passed += checkSame(++total, i2.minus(i1), UInt.sub(u2, u1));
+            passed += checkSame(++total, i1.times(i2), UInt.mul(u1, u2));
+            passed += checkSame(++total, i2.dividedBy(i1), UInt.div(u2, u1));
+            passed += checkSame(++total, i2.remainder(i1), UInt.rem(u2, u1));
+            passed += check(++total, i1.toString().equals(u1.toString()) && i2.toString().equals(u2.toString()));
+
+            // Every in-place operation is rejected, including the three-operand forms with an immutable destination
+            passed += checkRejected(++total, () -> i1.add(u2));
+            passed += checkRejected(++total, () -> i1.and(u2));
+            passed += checkRejected(++total, () -> i1.negate());
+            passed += checkRejected(++total, () -> i1.div(u2));
+            passed += checkRejected(++total, () -> UInt.mul(u1, u2, i1));
+            passed += check(++total, i1.toString().equals(u1.toString()));
+
+            // Random operands from one limb up to a few hundred, against the mutable operations on clones
+            int[] sizes = {1, 2, 5, 40, 130};
+            for (int n : sizes) {
+                UInt a = random(rng, n);
+                UInt b = random(rng, Math.max(1, n - 1));
+                String before = a.toString();
+                ImmutableUInt ia = ImmutableUInt.of(a);
+                ImmutableUInt ib = ImmutableUInt.of(b);
+                passed += checkSame(++total, ia.plus(ib), UInt.add(a, b));
+                passed += checkSame(++total, ia.minus(ib), UInt.sub(a, b));
+                passed += checkSame(++total, ia.times(ib), UInt.mul(a, b));
+                passed += checkSame(++total, ia.squared(), UInt.square(a));
+                passed += checkSame(++total, ia.remainder(ib), UInt.rem(a, b));
+                UInt negated = a.clone();
+                negated.negate();
+                passed += checkSame(++total, ia.negated(), negated);
+                passed += checkSame(++total, ia.xorWith(ib), UInt.xor(a, b));
+                passed += check(++total, a.toString().equals(before) && ia.toString().equals(before));
+            }
+
+            // Results with the value of this share its storage, and equal values are equal and hash alike
+            ImmutableUInt big = ImmutableUInt.of(random(rng, 3));
+            ImmutableUInt zero = ImmutableUInt.of(UInt.sub(u1, u2));
+            passed += check(++total, big.plus(zero) == big && big.xorWith(zero) == big && ImmutableUInt.of(big) == big);
+            passed += check(++total, i1.remainder(big) == i1);
+            ImmutableUInt copy = new ImmutableUInt(big.clone());
+            passed += check(++total, copy != big && copy.equals(big) && copy.hashCode() == big.hashCode());
+            UInt mutable = big.clone();
+            mutable.add(u1);
+            passed += check(++total, !(mutable instanceof ImmutableUInt) && !big.equals(ImmutableUInt.of(mutable)));
+
+            // valueOf hands out the same instance for cached values, and a fresh one with the same digits otherwise
+            passed += check(++total, UInt.valueOf(7) == UInt.valueOf(7L) && UInt.valueOf(1) == ImmutableUInt.ONE);
+            passed += check(++total, UInt.valueOf(0).toString().equals("0b0") && ImmutableUInt.TEN.toString().equals("0b01010"));
+            passed += check(++total, UInt.valueOf(1 << 20).equals(UInt.valueOf(1 << 20))
+                    && UInt.valueOf(1 << 20).toString().equals("0b0" + "1" + "0".repeat(20)));
+            passed += check(++total, UInt.valueOf(-1).toString().equals("0b0" + "1".repeat(32))
+                    && UInt.valueOf(-1L).length == 65 && UInt.valueOf(-1L).toString().equals("0b0" + "1".repeat(64)));
+            passed += check(++total, ImmutableUInt.powerOfTwo(3) == UInt.valueOf(8)
+                    && ImmutableUInt.powerOfTwo(40).equals(UInt.valueOf(1L << 40))
+                    && ImmutableUInt.powerOfTwo(63).equals(UInt.valueOf(Long.MIN_VALUE))
+                    && ImmutableUInt.powerOfTwo(100).toString().equals("0b01" + "0".repeat(100)));
+            ImmutableUInt twenty = ImmutableUInt.TWO.times(ImmutableUInt.TEN);
+            passed += check(++total, twenty.toInt() == 20 && twenty.length == 8 && ImmutableUInt.TEN.toInt() == 10);
+
+            // The int and long constructors size the value from its leading zeros, with one leading zero bit
+            passed += check(++total, new UInt(0).toString().equals("0b0") && new UInt(1).toString().equals("0b01")
+                    && new UInt(64).toString().equals("0b01000000") && new UInt(1 << 30).length == 32);
+            passed += check(++total, new UInt(-1).toString().equals("0b0" + "1".repeat(32))
+                    && new UInt(-1L).toString().equals("0b0" + "1".repeat(64)) && new UInt(5L).toString().equals("0b0101"));
+            passed += check(++total, new UInt(-1L, 4).toString().equals("0b1111") && new UInt(5L, 0).toString().equals("0b")
+                    && new UInt(6L, 130).toString().equals("0b" + "0".repeat(127) + "110"));
+            passed += checkSame(++total, UInt.valueOf(123456789L), new UInt(123456789L));
+
+            // Conversions to long and BigInteger, with the exact forms rejecting values that do not fit
+            passed += check(++total, new UInt(-1L).toLong() == -1L && new UInt(Integer.MAX_VALUE).toIntExact() == Integer.MAX_VALUE
+                    && new UInt(Long.MAX_VALUE).toLongExact() == Long.MAX_VALUE && new UInt(1L << 40).toLong() == 1L << 40);
+            passed += checkRejected(++total, () -> new UInt(1L << 31).toIntExact(), ArithmeticException.class);
+            passed += checkRejected(++total, () -> new UInt(-1L).toLongExact(), ArithmeticException.class);
+            passed += checkRejected(++total, () -> UInt.add(new UInt(-1L), new UInt(1)).toIntExact(), ArithmeticException.class);
+            for (int n : sizes) {
+                UInt a = random(rng, n);
+                BigInteger value = a.toBigInteger();
+                UInt back = UInt.fromBigInteger(value);
+                passed += check(++total, value.bitLength() <= 64 * n && back.toBigInteger().equals(value)
+                        && back.length == value.bitLength() + 1 && UInt.sub(back, a).toBigInteger().signum() == 0
+                        && UInt.sub(a, back).toBigInteger().signum() == 0);
+            }
+            passed += check(++total, UInt.fromBigInteger(BigInteger.ZERO).toString().equals("0b0")
+                    && UInt.fromBigInteger(BigInteger.ONE.shiftLeft(64)).toString().equals("0b01" + "0".repeat(64))
+                    && new UInt(-1L).toBigInteger().equals(BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE)));
+
+            // Radix conversions, checked against BigInteger at sizes on both sides of the divide-and-conquer crossover
+            passed += check(++total, new UInt(157).toString(10).equals("157") && new UInt(0).toString(7).equals("0")
+                    && new UInt(-1L).toString(10).equals("18446744073709551615"));
+            passed += checkRejected(++total, () -> new UInt(255).toString(99), IllegalArgumentException.class);
+            passed += check(++total, UInt.parse("943").toInt() == 943 && UInt.parse("000").toString().equals("0b0")
+                    && UInt.parse("Zz", 36).toInt() == 36 * 35 + 35 && UInt.parse("18446744073709551616").length == 66);
+            passed += checkRejected(++total, () -> UInt.parse("12a4"), NumberFormatException.class);
+            passed += checkRejected(++total, () -> UInt.parse("", 10), NumberFormatException.class);
+            passed += checkRejected(++total, () -> UInt.parse("101", 1), NumberFormatException.class);
+            int[] radixSizes = {2, 30, 200, 900};
+            for (int n : radixSizes) {
+                UInt a = random(rng, n);
+                int radix = n == 30 ? 7 : 10;
+                String digits = a.toBigInteger().toString(radix);
+                passed += check(++total, a.toString(radix).equals(digits)
+                        && UInt.parse(digits, radix).toBigInteger().equals(a.toBigInteger()));
+            }
+
+            // Power-of-two radices, including digits that straddle two limbs
+            passed += check(++total, new UInt(943).toHexString().equals("3af") && new UInt(943).toOctalString().equals("1657")
+                    && new UInt(0).toHexString().equals("0") && UInt.parse("3AF", 16).toInt() == 943);
+            UInt wide = random(rng, 5);
+            BigInteger wideValue = wide.toBigInteger();
+            passed += check(++total, wide.toHexString().equals(wideValue.toString(16))
+                    && wide.toOctalString().equals(wideValue.toString(8)) && wide.toString(32).equals(wideValue.toString(32))
+                    && wide.toString(2).equals(wideValue.toString(2)));
+            passed += check(++total, UInt.parse(wideValue.toString(8), 8).toBigInteger().equals(wideValue)
+                    && UInt.parse(wideValue.toString(32), 32).toBigInteger().equals(wideValue)
+                    && UInt.parse("000" + wideValue.toString(16), 16).toBigInteger().equals(wideValue));
+            passed += checkRejected(++total, () -> UInt.parse("12g", 16), NumberFormatException.class);
+
+            // AND NOT and NOT, on inline values and on runs long enough for the vector kernels
+            passed += check(++total, UInt.andNot(new UInt(157), new UInt(39)).toInt() == (157 & ~39)
+                    && UInt.not(new UInt(157)).toString().equals("0b101100010")
+                    && ImmutableUInt.TEN.andNotWith(ImmutableUInt.TWO).toInt() == 8);
+            UInt bitmap = random(rng, 40);
+            UInt mask = random(rng, 33);
+            BigInteger all = BigInteger.ONE.shiftLeft(bitmap.length).subtract(BigInteger.ONE);
+            passed += check(++total, UInt.andNot(bitmap, mask).toBigInteger().equals(bitmap.toBigInteger().andNot(mask.toBigInteger()))
+                    && UInt.not(bitmap).toBigInteger().equals(bitmap.toBigInteger().xor(all))
+                    && UInt.and(bitmap, mask).toBigInteger().equals(bitmap.toBigInteger().and(mask.toBigInteger()))
+                    && UInt.xor(bitmap, mask).toBigInteger().equals(bitmap.toBigInteger().xor(mask.toBigInteger())));
+
+            System.out.printf("%nValueTest passed %d of %d tests.%n", passed, total);
+        } catch (Exception ex) {
+            System.out.printf("%nValueTest crashed.%n");
+            ex.printStackTrace();
+        }
+    }
+
+    private static UInt random(Random rng, int n) {
+        long[] limbs = new long[n];
+        for (int i = 0; i < n; i++) {
+            limbs[i] = rng.nextLong();
+        }
+        return new UInt(limbs, 64 * n);
+    }
+
+    private static int checkSame(int testNum, UInt test, UInt target) {
+        if (test.length != target.length || !test.toString().equals(target.toString())) {
+            System.out.printf("Test %d failed!  Expected %s, received %s!%n", testNum, target, test);
+            return 0;
+        }
+        System.out.printf("Test %d passed!%n", testNum);
+        return 1;
+    }
+
+    private static int checkRejected(int testNum, Runnable op) {
+        return checkRejected(testNum, op, UnsupportedOperationException.class);
+    }
+
+    private static int checkRejected(int testNum, Runnable op, Class<? extends RuntimeException> expected) {
+        try {
+            op.run();
+        } catch (RuntimeException ex) {
+            if (expected.isInstance(ex)) {
+                System.out.printf("Test %d passed!%n", testNum);
+                return 1;
+            }
+        }
+        System.out.printf("Test %d failed!  The operation was not rejected!%n", testNum);
+        return 0;
+    }
+
+    private static int check(int testNum, boolean ok) {
+        System.out.printf(ok ? "Test %d passed!%n" : "Test %d failed!%n", testNum);
+        return ok ? 1 : 0;
+    }
+}
@@ -0,0 +1,103 @@
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * <h1>UIntVectorOps</h1>
+ * Bulk bitwise kernels on runs of limbs, written with the incubating Vector API so that each step works on as many
+ *   limbs as the widest vector register holds (4 with AVX2, 8 with AVX-512). The limbs past the last whole vector
+ *   are finished one at a time.
+ * This class needs the jdk.incubator.vector module to compile and to run, so it lives in a source directory of its
+ *   own and is built separately, after the rest of the tree:
+ *   javac --add-modules jdk.incubator.vector -cp . -d . vector/UIntVectorOps.java
+ *   Nothing refers to it by name at compile time. UIntLimbs looks it up once at run time, only when the module is
+ *   present, and keeps to its scalar loops when either the module or this class is missing.
+ *
+ * @author Tim Fielder
+ * @version 1.0 (Sept 30, 2024)
+ */
+final class UIntVectorOps implements UIntLimbs.BitwiseKernels {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+
+    UIntVectorOps() {
+    }
+
+    /**
+     * Stores a AND b in r, for n limbs. r may be the same run as a or b.
+     */
+    @Override
+    public void and(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector x = LongVector.fromArray(SPECIES, a, aOff + i);
+            LongVector y = LongVector.fromArray(SPECIES, b, bOff + i);
+            x.and(y).intoArray(r, rOff + i);
+        }
+        for (; i < n; i++) {
+            r[rOff + i] = a[aOff + i] & b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a OR b in r, for n limbs. r may be the same run as a or b.
+     */
+    @Override
+    public void or(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector x = LongVector.fromArray(SPECIES, a, aOff + i);
+            LongVector y = LongVector.fromArray(SPECIES, b, bOff + i);
+            x.or(y).intoArray(r, rOff + i);
+        }
+        for (; i < n; i++) {
+            r[rOff + i] = a[aOff + i] | b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a XOR b in r, for n limbs. r may be the same run as a or b.
+     */
+    @Override
+    public void xor(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector x = LongVector.fromArray(SPECIES, a, aOff + i);
+            LongVector y = LongVector.fromArray(SPECIES, b, bOff + i);
+            x.lanewise(VectorOperators.XOR, y).intoArray(r, rOff + i);
+        }
+        for (; i < n; i++) {
+            r[rOff + i] = a[aOff + i] ^ b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores a AND NOT b in r, for n limbs. r may be the same run as a or b.
+     */
+    @Override
+    public void andNot(long[] r, int rOff, long[] a, int aOff, long[] b, int bOff, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector x = LongVector.fromArray(SPECIES, a, aOff + i);
+            LongVector y = LongVector.fromArray(SPECIES, b, bOff + i);
+            x.lanewise(VectorOperators.AND_NOT, y).intoArray(r, rOff + i);
+        }
+        for (; i < n; i++) {
+            r[rOff + i] = a[aOff + i] & ~b[bOff + i];
+        }
+    }
+
+    /**
+     * Stores NOT a in r, for n limbs. r may be the same run as a.
+     */
+    @Override
+    public void not(long[] r, int rOff, long[] a, int aOff, int n) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(n); i < bound; i += SPECIES.length()) {
+            LongVector.fromArray(SPECIES, a, aOff + i).not().intoArray(r, rOff + i);
+        }
+        for (; i < n; i++) {
+            r[rOff + i] = ~a[aOff + i];
+        }
+    }
+}